@@ -0,0 +1,128 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.TemplateCompiler;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.metrics.RenderMetrics;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputCache;
+import com.cg.pdfgenerator.repository.TemplateRepository;
+import com.cg.pdfgenerator.service.ElementPreparer;
+import com.cg.pdfgenerator.service.MultiLanguagePdfService;
+import com.cg.pdfgenerator.service.PdfGeneratorService;
+import com.cg.pdfgenerator.service.StaticFragments;
+import com.cg.pdfgenerator.service.StreamingDataReader;
+import com.cg.pdfgenerator.service.TemplateStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Wires the generation pipeline the way Spring does, without starting a context,
+ * and builds the sample data the benchmarks render.
+ */
+final class BenchmarkFixtures {
+
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    final TemplateStore templateStore;
+    final PdfGeneratorService generator;
+
+    BenchmarkFixtures() throws IOException {
+        this(new PdfProperties());
+    }
+
+    BenchmarkFixtures(PdfProperties properties) throws IOException {
+        properties.getTemplates().setDir(Files.createTempDirectory("pdf-benchmark-templates"));
+        properties.getTemplates().setWatch(false);
+        // Prefetches run inline; the benchmarks measure one render at a time
+        ImageCache imageCache = new ImageCache(properties, Runnable::run);
+        templateStore = new TemplateStore(new TemplateCompiler(imageCache, properties),
+                new TemplateRepository(OBJECT_MAPPER, properties));
+        FontRegistry fontRegistry = new FontRegistry();
+        MultiLanguagePdfService multiLanguage = new MultiLanguagePdfService(fontRegistry);
+        multiLanguage.preloadFonts();
+        generator = new PdfGeneratorService(templateStore, fontRegistry, imageCache, multiLanguage,
+                new RenderMetrics(new SimpleMeterRegistry()), new OutputCache(OBJECT_MAPPER, properties),
+                new StaticFragments(fontRegistry, imageCache, multiLanguage), new StreamingDataReader(OBJECT_MAPPER),
+                new ElementPreparer(properties, ForkJoinPool.commonPool()));
+    }
+
+    static PdfTemplate loadTemplate(String resource) throws IOException {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Template resource not found: " + resource);
+            }
+            return OBJECT_MAPPER.readValue(in, PdfTemplate.class);
+        }
+    }
+
+    /**
+     * Data for the bundled invoice template with the given number of line items.
+     */
+    static Map<String, Object> invoiceData(int items) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("companyName", "ACME Corporation");
+        data.put("invoiceNumber", "INV-2024-0042");
+        data.put("invoiceDate", "2024-01-01");
+        data.put("dueDate", "2024-01-31");
+        data.put("customerName", "Jane Doe");
+        data.put("customerAddress", "1 Main Street");
+        data.put("customerCity", "Springfield");
+        data.put("customerState", "IL");
+        data.put("customerZip", "62701");
+        data.put("subtotal", "1,000.00");
+        data.put("taxRate", "10");
+        data.put("taxAmount", "100.00");
+        data.put("totalAmount", "1,100.00");
+
+        List<Map<String, Object>> rows = new ArrayList<>(items);
+        for (int i = 1; i <= items; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("Item", "SKU-" + i);
+            row.put("Description", "Consulting services, line " + i);
+            row.put("Quantity", String.valueOf(i % 7 + 1));
+            row.put("Unit Price", "125.00");
+            row.put("Total", String.valueOf((i % 7 + 1) * 125) + ".00");
+            rows.add(row);
+        }
+        data.put("items", rows);
+        return data;
+    }
+
+    /**
+     * A noisy (poorly compressible) PNG as a data URI, distinct per seed.
+     */
+    static String pngDataUri(int seed, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(seed);
+        Graphics2D graphics = image.createGraphics();
+        for (int y = 0; y < height; y += 8) {
+            for (int x = 0; x < width; x += 8) {
+                graphics.setColor(new Color(random.nextInt(0xFFFFFF)));
+                graphics.fillRect(x, y, 8, 8);
+            }
+        }
+        graphics.dispose();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+}
@@ -0,0 +1,50 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.service.MultiLanguagePdfService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code MultiLanguagePdfService.detectLanguage} on short and long, single-script and
+ * mixed-script text. Latin-only text is the worst case for a scan that checks one
+ * script after the other.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DetectLanguageBenchmark {
+
+    private static final String LATIN = "Invoice INV-2024-0042 for Jane Doe, 1 Main Street, Springfield. ";
+    private static final String MIXED_ARABIC = "Customer: محمد علي - order 42. ";
+    private static final String MIXED_CJK = "Product 产品名称 (日本語テキスト) shipped. ";
+    private static final String MIXED_TAMIL = "Address: சென்னை, Tamil Nadu. ";
+
+    @Param({"latin", "latinLong", "arabic", "cjk", "tamilLong"})
+    private String text;
+
+    private MultiLanguagePdfService service;
+    private String input;
+
+    @Setup
+    public void setUp() {
+        service = new MultiLanguagePdfService(new FontRegistry());
+        input = switch (text) {
+            case "latin" -> LATIN;
+            case "latinLong" -> LATIN.repeat(300);
+            case "arabic" -> MIXED_ARABIC;
+            case "cjk" -> MIXED_CJK;
+            case "tamilLong" -> LATIN.repeat(300) + MIXED_TAMIL;
+            default -> throw new IllegalArgumentException(text);
+        };
+    }
+
+    @Benchmark
+    public String detectLanguage() {
+        return service.detectLanguage(input);
+    }
+}
@@ -0,0 +1,87 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@code PdfGeneratorService.generatePdf}: the bundled invoice template,
+ * the same template with a 10,000-row item table, and an image-heavy template.
+ * Output sizes are printed once per trial; run with {@code -prof gc} for allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenerationBenchmark {
+
+    private static final int IMAGE_COUNT = 12;
+    private static final int DISTINCT_IMAGES = 4;
+
+    private BenchmarkFixtures fixtures;
+    private PdfGenerationRequest invoice;
+    private PdfGenerationRequest table10k;
+    private PdfGenerationRequest imageHeavy;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixtures = new BenchmarkFixtures();
+        fixtures.templateStore.saveTemplate(BenchmarkFixtures.loadTemplate("templates/invoice-template.json"));
+        fixtures.templateStore.saveTemplate(imageTemplate());
+
+        invoice = request("invoice-001", BenchmarkFixtures.invoiceData(2));
+        table10k = request("invoice-001", BenchmarkFixtures.invoiceData(10_000));
+
+        Map<String, Object> imageData = new HashMap<>();
+        for (int i = 0; i < DISTINCT_IMAGES; i++) {
+            imageData.put("image" + i, BenchmarkFixtures.pngDataUri(i, 400, 300));
+        }
+        imageHeavy = request("images", imageData);
+
+        System.out.printf("%nOutput size: invoice %d bytes, table10k %d bytes, imageHeavy %d bytes%n",
+                invoice().length, table10k().length, imageHeavy().length);
+    }
+
+    @Benchmark
+    public byte[] invoice() throws Exception {
+        return fixtures.generator.generatePdf(invoice);
+    }
+
+    @Benchmark
+    public byte[] table10k() throws Exception {
+        return fixtures.generator.generatePdf(table10k);
+    }
+
+    @Benchmark
+    public byte[] imageHeavy() throws Exception {
+        return fixtures.generator.generatePdf(imageHeavy);
+    }
+
+    private static PdfGenerationRequest request(String templateId, Map<String, Object> data) {
+        return PdfGenerationRequest.builder().templateId(templateId).data(data).build();
+    }
+
+    /**
+     * Twelve images drawn from four distinct sources, each used three times.
+     */
+    private static PdfTemplate imageTemplate() {
+        List<PdfTemplate.Element> elements = new ArrayList<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            elements.add(PdfTemplate.Element.builder()
+                    .id("image-" + i)
+                    .type("IMAGE")
+                    .content("{{image" + (i % DISTINCT_IMAGES) + "}}")
+                    .position(PdfTemplate.Position.builder().width(160f).build())
+                    .build());
+        }
+        return PdfTemplate.builder().templateId("images").elements(elements).build();
+    }
+}
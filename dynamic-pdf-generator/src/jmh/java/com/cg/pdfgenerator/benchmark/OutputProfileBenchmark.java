@@ -0,0 +1,81 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and output size of each output profile: the bundled invoice with a 1,000-row
+ * item table, which is mostly content streams, and an image-heavy document, which is
+ * mostly PNG data embedded as it is. Results are in {@code src/jmh/README.md}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutputProfileBenchmark {
+
+    private static final int IMAGE_COUNT = 8;
+
+    @Param({"FAST", "BALANCED", "SMALLEST"})
+    public String profile;
+
+    private BenchmarkFixtures fixtures;
+    private PdfGenerationRequest table1k;
+    private PdfGenerationRequest images;
+
+    @Setup
+    public void setUp() throws Exception {
+        fixtures = new BenchmarkFixtures();
+        fixtures.templateStore.saveTemplate(BenchmarkFixtures.loadTemplate("templates/invoice-template.json"));
+        fixtures.templateStore.saveTemplate(imageTemplate());
+
+        table1k = request("invoice-001", BenchmarkFixtures.invoiceData(1_000));
+        Map<String, Object> imageData = new HashMap<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            imageData.put("image" + i, BenchmarkFixtures.pngDataUri(i, 400, 300));
+        }
+        images = request("images", imageData);
+
+        System.out.printf("%nOutput size (%s): table1k %d bytes, images %d bytes%n",
+                profile, table1k().length, images().length);
+    }
+
+    @Benchmark
+    public byte[] table1k() throws Exception {
+        return fixtures.generator.generatePdf(table1k);
+    }
+
+    @Benchmark
+    public byte[] images() throws Exception {
+        return fixtures.generator.generatePdf(images);
+    }
+
+    private PdfGenerationRequest request(String templateId, Map<String, Object> data) {
+        return PdfGenerationRequest.builder().templateId(templateId).data(data).outputProfile(profile).build();
+    }
+
+    /**
+     * Eight distinct images, each shown once.
+     */
+    private static PdfTemplate imageTemplate() {
+        List<PdfTemplate.Element> elements = new ArrayList<>();
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            elements.add(PdfTemplate.Element.builder()
+                    .id("image-" + i)
+                    .type("IMAGE")
+                    .content("{{image" + i + "}}")
+                    .position(PdfTemplate.Position.builder().width(160f).build())
+                    .build());
+        }
+        return PdfTemplate.builder().templateId("images").elements(elements).build();
+    }
+}
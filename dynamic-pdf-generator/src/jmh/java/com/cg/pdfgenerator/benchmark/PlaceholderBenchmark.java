@@ -0,0 +1,73 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pre-parsed {@link PlaceholderTemplate} against the original
+ * replace-per-data-entry loop from {@code BaseElementProcessor.resolveContent}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PlaceholderBenchmark {
+
+    private static final String CONTENT =
+            "Invoice Number: {{invoiceNumber}}\nDate: {{invoiceDate}}\nDue Date: {{dueDate}}\n"
+            + "{{customerName}}\n{{customerAddress}}\n{{customerCity}}, {{customerState}} {{customerZip}}\n"
+            + "Ship to: {{customer.address.city}} - thank you for your business!";
+
+    @Param({"10", "100", "500"})
+    private int dataKeys;
+
+    private Map<String, Object> data;
+    private PlaceholderTemplate template;
+
+    @Setup
+    public void setUp() {
+        data = new HashMap<>();
+        data.put("invoiceNumber", "INV-2024-0042");
+        data.put("invoiceDate", "2024-01-01");
+        data.put("dueDate", "2024-01-31");
+        data.put("customerName", "Jane Doe");
+        data.put("customerAddress", "1 Main Street");
+        data.put("customerCity", "Springfield");
+        data.put("customerState", "IL");
+        data.put("customerZip", "62701");
+        data.put("customer.address.city", "Springfield");
+        for (int i = data.size(); i < dataKeys; i++) {
+            data.put("field" + i, "value" + i);
+        }
+        template = PlaceholderTemplate.parse(CONTENT);
+    }
+
+    @Benchmark
+    public String legacyReplaceLoop() {
+        String contentStr = CONTENT;
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            String placeholder = "{{" + entry.getKey() + "}}";
+            if (contentStr.contains(placeholder)) {
+                contentStr = contentStr.replace(placeholder,
+                    entry.getValue() != null ? entry.getValue().toString() : "");
+            }
+        }
+        return contentStr;
+    }
+
+    @Benchmark
+    public String preParsedTemplate() {
+        return template.render(data);
+    }
+
+    @Benchmark
+    public String parseAndRender() {
+        return PlaceholderTemplate.parse(CONTENT).render(data);
+    }
+}
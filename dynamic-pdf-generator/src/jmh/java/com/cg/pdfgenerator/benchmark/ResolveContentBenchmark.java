@@ -0,0 +1,82 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.engine.RenderContext;
+import com.cg.pdfgenerator.processor.BaseElementProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code BaseElementProcessor.resolveContent} against data maps of growing size, for
+ * compiled content, raw strings that still need parsing and strings without placeholders.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResolveContentBenchmark {
+
+    private static final String CONTENT =
+            "Invoice Number: {{invoiceNumber}}\nDate: {{invoiceDate}}\nDue Date: {{dueDate}}\n"
+            + "{{customerName}}\n{{customer.address.street}}\n{{customer.address.city}}, {{customerState}}";
+
+    private static final String PLAIN = "Thank you for your business! Payment is due within 30 days.";
+
+    @Param({"10", "1000", "10000"})
+    private int dataKeys;
+
+    private Map<String, Object> data;
+    private PlaceholderTemplate compiled;
+    private Resolver resolver;
+
+    @Setup
+    public void setUp() {
+        data = new HashMap<>();
+        data.put("invoiceNumber", "INV-2024-0042");
+        data.put("invoiceDate", "2024-01-01");
+        data.put("dueDate", "2024-01-31");
+        data.put("customerName", "Jane Doe");
+        data.put("customerState", "IL");
+        data.put("customer", Map.of("address", Map.of("street", "1 Main Street", "city", "Springfield")));
+        for (int i = data.size(); i < dataKeys; i++) {
+            data.put("field" + i, "value" + i);
+        }
+        compiled = PlaceholderTemplate.parse(CONTENT);
+        resolver = new Resolver();
+    }
+
+    @Benchmark
+    public String compiledContent() {
+        return resolver.resolve(compiled, data);
+    }
+
+    @Benchmark
+    public String rawContent() {
+        return resolver.resolve(CONTENT, data);
+    }
+
+    @Benchmark
+    public String plainContent() {
+        return resolver.resolve(PLAIN, data);
+    }
+
+    /**
+     * Exposes the protected resolution shared by all processors.
+     */
+    private static final class Resolver extends BaseElementProcessor {
+
+        String resolve(Object content, Map<String, Object> data) {
+            return resolveContent(content, data);
+        }
+
+        @Override
+        public void process(RenderContext context, CompiledElement element, Object prepared) {
+        }
+    }
+}
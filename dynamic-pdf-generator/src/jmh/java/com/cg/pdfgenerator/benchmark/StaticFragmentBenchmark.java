@@ -0,0 +1,76 @@
+package com.cg.pdfgenerator.benchmark;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A letter with a static letterhead and terms and conditions around two data-bound
+ * lines, rendered with static fragments copied in and with every element laid out.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StaticFragmentBenchmark {
+
+    private static final String TERMS = "Payment is due within 30 days of the invoice date. Late payments are "
+            + "subject to a fee of 1.5% per month. All goods remain the property of the seller until paid in "
+            + "full. Claims must be made within 14 days of delivery. ";
+
+    @Param({"true", "false"})
+    public boolean staticFragments;
+
+    private BenchmarkFixtures fixtures;
+    private PdfGenerationRequest letter;
+
+    @Setup
+    public void setUp() throws Exception {
+        PdfProperties properties = new PdfProperties();
+        properties.getRender().setStaticFragments(staticFragments);
+        fixtures = new BenchmarkFixtures(properties);
+        fixtures.templateStore.saveTemplate(letterTemplate());
+        letter = PdfGenerationRequest.builder()
+                .templateId("letter")
+                .data(Map.of("name", "Jane Doe", "order", "A-1001"))
+                .build();
+
+        System.out.printf("%nOutput size: letter %d bytes%n", letter().length);
+    }
+
+    @Benchmark
+    public byte[] letter() throws Exception {
+        return fixtures.generator.generatePdf(letter);
+    }
+
+    private static PdfTemplate letterTemplate() {
+        List<PdfTemplate.Element> elements = new ArrayList<>();
+        elements.add(element("HEADER", "ACME Corporation", 22f));
+        elements.add(element("PARAGRAPH", "1 Industrial Way\nSpringfield, 12345\nPhone +1 555 0100 - "
+                + "billing@acme.example - Registered in Springfield under company number 0012345", 9f));
+        elements.add(element("TEXT", "Dear {{name}},", 12f));
+        elements.add(element("PARAGRAPH", "Your order {{order}} has been shipped.", 11f));
+        elements.add(element("TEXT", "Terms and Conditions", 13f));
+        for (int i = 1; i <= 5; i++) {
+            elements.add(element("PARAGRAPH", (i + ". " + TERMS).repeat(3), 9f));
+        }
+        elements.add(element("FOOTER", "Reference {{order}}", 8f));
+        return PdfTemplate.builder().templateId("letter").elements(elements).build();
+    }
+
+    private static PdfTemplate.Element element(String type, String content, float fontSize) {
+        return PdfTemplate.Element.builder()
+                .type(type)
+                .content(content)
+                .style(PdfTemplate.Style.builder().fontSize(fontSize).build())
+                .build();
+    }
+}
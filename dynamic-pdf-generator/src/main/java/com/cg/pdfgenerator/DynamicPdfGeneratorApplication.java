@@ -4,8 +4,12 @@ package com.cg.pdfgenerator;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@EnableScheduling
 public class DynamicPdfGeneratorApplication {
     public static void main(String[] args) {
         SpringApplication.run(DynamicPdfGeneratorApplication.class, args);
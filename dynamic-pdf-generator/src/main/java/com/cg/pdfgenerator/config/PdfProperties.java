@@ -0,0 +1,130 @@
+package com.cg.pdfgenerator.config;
+
+import com.cg.pdfgenerator.output.OutputProfile;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tunables of the generation engine, bound from {@code pdf.*} in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "pdf")
+public class PdfProperties {
+
+    private Render render = new Render();
+    private Images images = new Images();
+    private Tables tables = new Tables();
+    private Batch batch = new Batch();
+    private Jobs jobs = new Jobs();
+    private Templates templates = new Templates();
+    private Warmup warmup = new Warmup();
+    private Output output = new Output();
+
+    @Data
+    public static class Render {
+        /** Documents laid out at the same time; layout is CPU bound, so defaults to one per CPU. */
+        private int maxConcurrent = Runtime.getRuntime().availableProcessors();
+        /** How long a request waits for a free slot before it is rejected with 429. */
+        private Duration acquireTimeout = Duration.ofSeconds(10);
+        /** Lay out runs of elements without placeholders once per template version and copy them into documents. */
+        private boolean staticFragments = true;
+        /** Runs of static elements with less text than this are laid out per document as usual. */
+        private int staticFragmentMinLength = 200;
+        /** Resolve placeholders, format values and build table rows of all elements in parallel ahead of layout. */
+        private boolean parallelPreparation = true;
+        /** Async timeout of responses that grow with the input, such as batch ZIPs, merged PDFs and documents from streamed data, instead of {@code spring.mvc.async.request-timeout}; 0 for none. */
+        private Duration longRequestTimeout = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Images {
+        /** Upper bound of decoded image bytes kept in the image cache. */
+        private DataSize cacheMaxSize = DataSize.ofMegabytes(64);
+        /** How long a cached image is reused before it is loaded again. */
+        private Duration cacheTtl = Duration.ofMinutes(30);
+        /** How long a failed load is reported again instead of retried; 0 retries every time. */
+        private Duration failureTtl = Duration.ofMinutes(1);
+        /** Resolution images are scaled down to for the box they are shown in; 0 embeds them as they are. */
+        private int maxDpi = 150;
+        /** Quality of JPEG images written again after scaling, from 0 to 1. */
+        private float jpegQuality = 0.85f;
+        private Duration connectTimeout = Duration.ofSeconds(7);
+        private Duration readTimeout = Duration.ofSeconds(7);
+        /** Longest a render waits for an image another thread is loading before giving up on it. */
+        private Duration loadTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Tables {
+        /** Tables with more rows than this are laid out incrementally instead of as a whole. */
+        private int largeTableThreshold = 500;
+        /** Rows added to a large table between two flushes to the document. */
+        private int flushEvery = 100;
+    }
+
+    @Data
+    public static class Batch {
+        /** Documents rendered in parallel by a batch; defaults to one per CPU. */
+        private int workers = Runtime.getRuntime().availableProcessors();
+        /** Rendered documents buffered ahead of the writer, per worker. */
+        private int queueDepth = 2;
+        /** Root under which batches may be written to disk; unset disables directory output. */
+        private Path outputDir;
+    }
+
+    @Data
+    public static class Jobs {
+        /** Jobs rendered at the same time; each still takes a render slot. */
+        private int workers = Runtime.getRuntime().availableProcessors();
+        /** Jobs waiting for a worker before new submissions are rejected with 429. */
+        private int queueCapacity = 100;
+        /** Where finished documents are kept until they expire. */
+        private Path storeDir = Path.of(System.getProperty("java.io.tmpdir"), "pdf-jobs");
+        /** How long a finished job and its document are kept. */
+        private Duration resultTtl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Templates {
+        /** Where templates are stored, one {@code <templateId>.json} file each. */
+        private Path dir = Path.of("templates");
+        /** Reload templates whose files are added, changed or removed while the application runs. */
+        private boolean watch = true;
+    }
+
+    @Data
+    public static class Warmup {
+        /** Warm up before the readiness probe reports the application as accepting traffic. */
+        private boolean enabled = true;
+        /** Templates shipped with the application, stored on startup unless already present. */
+        private String bundledTemplates = "classpath*:templates/*.json";
+        /** Synthetic documents rendered per template so the JIT compiles the render path. */
+        private int iterations = 20;
+        /** Rendering stops after this long, whatever is left. */
+        private Duration timeout = Duration.ofSeconds(30);
+        /** Stops the application once warmed up; used for the class data sharing training run. */
+        private boolean exit;
+    }
+
+    @Data
+    public static class Output {
+        /** Fixed document ID and no dates in the document info, so equal requests give identical bytes. */
+        private boolean deterministic;
+        /** Reuse documents generated for the same template version and data; implies deterministic output. */
+        private boolean cacheEnabled;
+        /** Upper bound of document bytes kept in memory; older documents spill to {@code cache-dir}. */
+        private DataSize cacheMaxMemory = DataSize.ofMegabytes(64);
+        /** Where documents evicted from memory are kept; unset drops them instead. */
+        private Path cacheDir;
+        /** Upper bound of document bytes kept in {@code cache-dir}. */
+        private DataSize cacheMaxDisk = DataSize.ofGigabytes(1);
+        /** How long a document is reused; images it shows are not reloaded before then. */
+        private Duration cacheTtl = Duration.ofMinutes(10);
+        /** Writer settings of templates and requests that do not choose a profile. */
+        private OutputProfile profile = OutputProfile.BALANCED;
+    }
+}
@@ -3,9 +3,17 @@
 // File: controller/PdfController.java
 package com.cg.pdfgenerator.controller;
 
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.model.BatchGenerationRequest;
+import com.cg.pdfgenerator.model.BatchResult;
+import com.cg.pdfgenerator.model.MergedGenerationRequest;
 import com.cg.pdfgenerator.model.PdfGenerationRequest;
 import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputProfile;
+import com.cg.pdfgenerator.service.BatchPdfService;
 import com.cg.pdfgenerator.service.PdfGeneratorService;
+import com.cg.pdfgenerator.service.RenderLimiter;
+import com.cg.pdfgenerator.service.RenderRejectedException;
 import com.cg.pdfgenerator.service.TemplateStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +22,18 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/api/pdf")
@@ -21,31 +41,261 @@ import org.springframework.web.bind.annotation.*;
 @Slf4j
 public class PdfController {
     
+    private static final String LONG_REQUEST_TIMEOUT = PdfController.class.getName() + ".longRequestTimeout";
+    
     private final PdfGeneratorService pdfGeneratorService;
     private final TemplateStore templateStore;
+    private final BatchPdfService batchPdfService;
+    private final RenderLimiter renderLimiter;
+    private final PdfProperties properties;
     
+    /**
+     * Renders the document into the response. When output is deterministic the response
+     * carries an ETag derived from the template version and the data, a client sending
+     * it back in {@code If-None-Match} gets 304, and cached documents are returned
+     * without taking a render slot. Images are loaded before the slot is taken, so it is
+     * only held for layout.
+     */
     @PostMapping("/generate")
-    public ResponseEntity<byte[]> generatePdf(@RequestBody PdfGenerationRequest request) {
+    public ResponseEntity<byte[]> generatePdf(@RequestBody PdfGenerationRequest request,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             log.info("PDF generation request received for template: {}", request.getTemplateId());
             
-            byte[] pdfBytes = pdfGeneratorService.generatePdf(request);
+            if (!OutputProfile.isValid(request.getOutputProfile())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+            HttpHeaders headers = pdfHeaders(request.getOutputFileName());
+            String documentKey = pdfGeneratorService.documentKey(request);
+            if (documentKey != null) {
+                String etag = "\"" + documentKey + "\"";
+                headers.setETag(etag);
+                if (matches(ifNoneMatch, etag)) {
+                    return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+                }
+            }
             
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_PDF);
-            String fileName = request.getOutputFileName() != null 
-                ? request.getOutputFileName() 
-                : "document.pdf";
-            headers.setContentDispositionFormData("attachment", fileName);
+            byte[] pdfBytes = pdfGeneratorService.findCached(documentKey);
+            if (pdfBytes == null) {
+                pdfGeneratorService.loadImages(request);
+                RenderLimiter.Permit permit = renderLimiter.acquire();
+                try {
+                    pdfBytes = pdfGeneratorService.generatePdf(request, documentKey);
+                } finally {
+                    permit.close();
+                }
+            }
             
             return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
             
+        } catch (RenderRejectedException e) {
+            return tooManyRequests();
         } catch (Exception e) {
             log.error("Error generating PDF", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
     
+    /**
+     * Streams the PDF to the client while it is being rendered instead of buffering
+     * the whole document first. Errors after the first byte has been sent can only
+     * abort the connection, so the template is checked before streaming starts.
+     */
+    @PostMapping("/generate/stream")
+    public ResponseEntity<StreamingResponseBody> streamPdf(@RequestBody PdfGenerationRequest request,
+                                                           WebRequest webRequest) {
+        log.info("Streaming PDF generation request received for template: {}", request.getTemplateId());
+        
+        if (request.getTemplateId() == null || !templateStore.templateExists(request.getTemplateId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (!OutputProfile.isValid(request.getOutputProfile())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        
+        // Taken before streaming starts so a busy server can still answer with a status code
+        RenderLimiter.Permit permit;
+        try {
+            permit = renderLimiter.acquire();
+        } catch (RenderRejectedException e) {
+            return tooManyRequests();
+        }
+        releaseOnCompletion(webRequest, permit);
+        
+        StreamingResponseBody body = out -> {
+            try {
+                pdfGeneratorService.generatePdf(request, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error streaming PDF for template: " + request.getTemplateId(), e);
+            } finally {
+                permit.close();
+            }
+        };
+        
+        return new ResponseEntity<>(body, pdfHeaders(request.getOutputFileName()), HttpStatus.OK);
+    }
+    
+    /**
+     * Same as {@link #streamPdf} for a body holding only the data, with the template and
+     * the other request fields as parameters. The body is read while the document is
+     * rendered: the rows of each table's {@code dataSource} array are parsed as the table
+     * lays them out, so payloads of any size are never held in memory. Elements before a
+     * table only see the fields that come before its array in the body.
+     */
+    @PostMapping(value = "/generate/stream", params = "templateId")
+    public ResponseEntity<StreamingResponseBody> streamPdfFromData(
+            @RequestParam String templateId,
+            @RequestParam(required = false) String outputFileName,
+            @RequestParam(required = false) String outputProfile,
+            InputStream data,
+            WebRequest webRequest) {
+        log.info("Streaming PDF generation request with streamed data received for template: {}", templateId);
+        
+        if (!templateStore.templateExists(templateId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (!OutputProfile.isValid(outputProfile)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        
+        // Taken before streaming starts so a busy server can still answer with a status code
+        RenderLimiter.Permit permit;
+        try {
+            permit = renderLimiter.acquire();
+        } catch (RenderRejectedException e) {
+            return tooManyRequests();
+        }
+        releaseOnCompletion(webRequest, permit);
+        useLongRequestTimeout(webRequest);
+        
+        StreamingResponseBody body = out -> {
+            try {
+                pdfGeneratorService.generatePdf(templateId, data, outputProfile, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error streaming PDF for template: " + templateId, e);
+            } finally {
+                permit.close();
+            }
+        };
+        
+        return new ResponseEntity<>(body, pdfHeaders(outputFileName), HttpStatus.OK);
+    }
+    
+    /**
+     * Renders all records into a single PDF, one record after the other, streamed to the client.
+     */
+    @PostMapping("/merge")
+    public ResponseEntity<StreamingResponseBody> generateMergedPdf(@RequestBody MergedGenerationRequest request,
+                                                                   WebRequest webRequest) {
+        log.info("Merged PDF request received for template: {}", request.getTemplateId());
+        
+        if (request.getTemplateId() == null || !templateStore.templateExists(request.getTemplateId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (request.getRecords() == null || request.getRecords().isEmpty()
+                || !OutputProfile.isValid(request.getOutputProfile())) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        
+        // Taken before streaming starts so a busy server can still answer with a status code
+        RenderLimiter.Permit permit;
+        try {
+            permit = renderLimiter.acquire();
+        } catch (RenderRejectedException e) {
+            return tooManyRequests();
+        }
+        releaseOnCompletion(webRequest, permit);
+        useLongRequestTimeout(webRequest);
+        
+        StreamingResponseBody body = out -> {
+            try {
+                pdfGeneratorService.generateMergedPdf(request, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error streaming merged PDF for template: " + request.getTemplateId(), e);
+            } finally {
+                permit.close();
+            }
+        };
+        
+        return new ResponseEntity<>(body, pdfHeaders(request.getOutputFileName()), HttpStatus.OK);
+    }
+    
+    /**
+     * Renders one PDF per record and streams them back as a ZIP archive.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> generateBatch(@RequestBody BatchGenerationRequest request,
+                                                               WebRequest webRequest) {
+        log.info("Batch request received for template: {}", request.getTemplateId());
+        
+        if (request.getTemplateId() == null || !templateStore.templateExists(request.getTemplateId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        
+        List<Map<String, Object>> records = request.getRecords() != null ? request.getRecords() : List.of();
+        useLongRequestTimeout(webRequest);
+        StreamingResponseBody body = out ->
+                batchPdfService.writeZip(request.getTemplateId(), records.iterator(), request.getFileNamePattern(), out);
+        
+        return new ResponseEntity<>(body, zipHeaders(request.getTemplateId()), HttpStatus.OK);
+    }
+    
+    /**
+     * Same as {@link #generateBatch} for a newline-delimited JSON body with one record per
+     * line. Records are read while earlier ones are rendered, so the batch is never held
+     * in memory as a whole.
+     */
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> generateBatchFromNdjson(
+            @RequestParam String templateId,
+            @RequestParam(required = false) String fileNamePattern,
+            InputStream records,
+            WebRequest webRequest) {
+        log.info("NDJSON batch request received for template: {}", templateId);
+        
+        if (!templateStore.templateExists(templateId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        
+        useLongRequestTimeout(webRequest);
+        StreamingResponseBody body = out ->
+                batchPdfService.writeZip(templateId, batchPdfService.readNdjson(records), fileNamePattern, out);
+        
+        return new ResponseEntity<>(body, zipHeaders(templateId), HttpStatus.OK);
+    }
+    
+    /**
+     * Renders the batch into a directory below {@code pdf.batch.output-dir} and reports the outcome.
+     */
+    @PostMapping("/batch/directory")
+    public ResponseEntity<BatchResult> generateBatchToDirectory(@RequestBody BatchGenerationRequest request) {
+        try {
+            log.info("Batch to directory request received for template: {}", request.getTemplateId());
+            
+            if (request.getTemplateId() == null || !templateStore.templateExists(request.getTemplateId())) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+            
+            List<Map<String, Object>> records = request.getRecords() != null ? request.getRecords() : List.of();
+            BatchResult result = batchPdfService.writeToDirectory(request.getTemplateId(), records.iterator(),
+                    request.getFileNamePattern(), request.getOutputDirectory());
+            return ResponseEntity.ok(result);
+            
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            log.error("Rejected batch request", e);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (Exception e) {
+            log.error("Error generating batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     @PostMapping("/template")
     public ResponseEntity<String> saveTemplate(@RequestBody PdfTemplate template) {
         try {
@@ -78,4 +328,73 @@ public class PdfController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error: " + e.getMessage());
         }
     }
+    
+    private HttpHeaders pdfHeaders(String outputFileName) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        String fileName = outputFileName != null ? outputFileName : "document.pdf";
+        headers.setContentDispositionFormData("attachment", fileName);
+        return headers;
+    }
+    
+    /**
+     * Whether an {@code If-None-Match} header lists the ETag; weak validators match too.
+     */
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.replaceFirst("^W/", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private HttpHeaders zipHeaders(String templateId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", templateId + ".zip");
+        return headers;
+    }
+    
+    /**
+     * Gives the streamed response {@code pdf.render.long-request-timeout} instead of
+     * {@code spring.mvc.async.request-timeout}. Its length grows with the input, so a
+     * fixed cap would cut large ones off partway and leave the client a truncated file.
+     */
+    private void useLongRequestTimeout(WebRequest webRequest) {
+        long timeoutMillis = properties.getRender().getLongRequestTimeout().toMillis();
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(LONG_REQUEST_TIMEOUT,
+                new CallableProcessingInterceptor() {
+                    // Runs after the default timeout is applied and before async processing starts
+                    @Override
+                    public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                        ((AsyncWebRequest) request).setTimeout(timeoutMillis > 0 ? timeoutMillis : -1);
+                    }
+                });
+    }
+    
+    /**
+     * Also releases a permit taken for a streamed body when the async request completes.
+     * The body releases it as soon as it is done, but it may never run: the request can
+     * time out or fail, or the client go away, before the task executor gets to it.
+     */
+    private static void releaseOnCompletion(WebRequest webRequest, RenderLimiter.Permit permit) {
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(permit,
+                new CallableProcessingInterceptor() {
+                    @Override
+                    public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+                        permit.close();
+                    }
+                });
+    }
+    
+    private <T> ResponseEntity<T> tooManyRequests() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .build();
+    }
 }
\ No newline at end of file
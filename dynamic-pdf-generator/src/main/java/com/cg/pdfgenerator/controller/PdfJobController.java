@@ -0,0 +1,91 @@
+package com.cg.pdfgenerator.controller;
+
+import com.cg.pdfgenerator.model.JobStatus;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.output.OutputProfile;
+import com.cg.pdfgenerator.service.PdfJobService;
+import com.cg.pdfgenerator.service.RenderRejectedException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Asynchronous generation: submit a job, poll its status, download the document when done.
+ */
+@RestController
+@RequestMapping("/api/pdf/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class PdfJobController {
+    
+    private final PdfJobService pdfJobService;
+    
+    @PostMapping
+    public ResponseEntity<JobStatus> submitJob(@RequestBody PdfGenerationRequest request) {
+        try {
+            log.info("PDF job request received for template: {}", request.getTemplateId());
+            if (!OutputProfile.isValid(request.getOutputProfile())) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            }
+            
+            JobStatus status = pdfJobService.submit(request);
+            
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/pdf/jobs/" + status.getJobId()))
+                    .body(status);
+            
+        } catch (RenderRejectedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        } catch (IllegalArgumentException e) {
+            log.error("Rejected PDF job", e);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (Exception e) {
+            log.error("Error submitting PDF job", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobStatus> getJob(@PathVariable String jobId) {
+        return pdfJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+    
+    /**
+     * Downloads the document of a completed job; 409 while the job is still queued or running, or if it failed.
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<Resource> getJobResult(@PathVariable String jobId) {
+        Optional<JobStatus> status = pdfJobService.getStatus(jobId);
+        if (status.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        if (status.get().getState() != JobStatus.State.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        Optional<Path> result = pdfJobService.getResult(jobId);
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        String fileName = status.get().getOutputFileName() != null ? status.get().getOutputFileName() : "document.pdf";
+        headers.setContentDispositionFormData("attachment", fileName);
+        return new ResponseEntity<>(new FileSystemResource(result.get()), headers, HttpStatus.OK);
+    }
+}
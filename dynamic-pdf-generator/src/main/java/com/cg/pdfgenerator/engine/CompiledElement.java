@@ -0,0 +1,35 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.processor.ElementProcessor;
+import com.itextpdf.layout.properties.HorizontalAlignment;
+import com.itextpdf.layout.properties.TextAlignment;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Map;
+
+/**
+ * One step of a {@link CompiledTemplate}: the element with its processor resolved
+ * and everything that does not depend on request data already parsed.
+ */
+@Value
+@Builder
+public class CompiledElement {
+    String id;
+    String type;
+    PdfTemplate.Element source;
+    ElementProcessor processor;
+    TextAlignment textAlignment;
+    HorizontalAlignment horizontalAlignment;
+    Float width;
+    Float height;
+    CompiledStyle style;
+    /** Processor-specific form of the element content, see {@link ElementProcessor#compileContent}. */
+    Object content;
+    Map<String, Object> properties;
+
+    public Object getProperty(String name) {
+        return properties.get(name);
+    }
+}
@@ -0,0 +1,96 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.colors.DeviceRgb;
+import com.itextpdf.layout.borders.Border;
+import com.itextpdf.layout.borders.SolidBorder;
+import lombok.Value;
+
+/**
+ * A {@link PdfTemplate.Style} resolved once at compile time: colors parsed, the border
+ * built and the font picked. Immutable, so it is shared by every request of a template
+ * version; {@link DocumentStyles} turns it into an iText style once per document.
+ */
+@Value
+public class CompiledStyle {
+
+    private static final Color DEFAULT_BORDER_COLOR = new DeviceRgb(0, 0, 0);
+
+    Float fontSize;
+    Color fontColor;
+    Color backgroundColor;
+    boolean bold;
+    boolean italic;
+    boolean underline;
+    /** Standard font for bold and italic text, {@code null} to keep the element's font. */
+    String font;
+    Border border;
+    Float padding;
+    Float lineHeight;
+
+    public static CompiledStyle of(PdfTemplate.Style style) {
+        if (style == null) {
+            return null;
+        }
+
+        Border border = null;
+        if (style.getBorderWidth() != null && style.getBorderWidth() > 0) {
+            Color borderColor = style.getBorderColor() != null
+                ? parseColor(style.getBorderColor())
+                : DEFAULT_BORDER_COLOR;
+            border = new SolidBorder(borderColor, style.getBorderWidth());
+        }
+
+        boolean bold = Boolean.TRUE.equals(style.getBold());
+        boolean italic = Boolean.TRUE.equals(style.getItalic());
+
+        return new CompiledStyle(
+            style.getFontSize(),
+            parseColor(style.getFontColor()),
+            parseColor(style.getBackgroundColor()),
+            bold,
+            italic,
+            Boolean.TRUE.equals(style.getUnderline()),
+            fontOf(bold, italic),
+            border,
+            style.getPadding(),
+            style.getLineHeight());
+    }
+
+    public boolean hasBorder() {
+        return border != null;
+    }
+
+    private static String fontOf(boolean bold, boolean italic) {
+        if (bold && italic) {
+            return StandardFonts.HELVETICA_BOLDOBLIQUE;
+        } else if (bold) {
+            return StandardFonts.HELVETICA_BOLD;
+        } else if (italic) {
+            return StandardFonts.HELVETICA_OBLIQUE;
+        }
+        return null;
+    }
+
+    static Color parseColor(String colorStr) {
+        if (colorStr == null || colorStr.isEmpty()) {
+            return null;
+        }
+
+        try {
+            if (colorStr.startsWith("#")) {
+                colorStr = colorStr.substring(1);
+            }
+
+            int r = Integer.parseInt(colorStr.substring(0, 2), 16);
+            int g = Integer.parseInt(colorStr.substring(2, 4), 16);
+            int b = Integer.parseInt(colorStr.substring(4, 6), 16);
+
+            return new DeviceRgb(r, g, b);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.model.PdfTemplate;
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Table content converted from the raw template map once, with its styles compiled
+ * and its header and cell texts pre-parsed into placeholder templates.
+ * Shared by every request, so it must never be modified while rendering.
+ */
+@Value
+public class CompiledTable {
+    List<PlaceholderTemplate> headers;
+    List<List<PlaceholderTemplate>> rows;
+    /** Percentage column widths, or {@code null} for equal columns. */
+    float[] columnWidths;
+    CompiledStyle headerStyle;
+    CompiledStyle rowStyle;
+    CompiledStyle alternateRowStyle;
+    /** Name of the data entry providing the rows, or {@code null} for static rows. */
+    String dataSource;
+
+    public boolean hasHeaders() {
+        return headers != null && !headers.isEmpty();
+    }
+
+    public static CompiledTable of(PdfTemplate.TableContent content, String dataSource) {
+        PdfTemplate.TableStyle tableStyle = content.getTableStyle();
+
+        float[] columnWidths = null;
+        if (tableStyle != null && tableStyle.getColumnWidths() != null) {
+            Float[] widths = tableStyle.getColumnWidths();
+            columnWidths = new float[widths.length];
+            for (int i = 0; i < widths.length; i++) {
+                columnWidths[i] = widths[i];
+            }
+        }
+
+        return new CompiledTable(
+            parseAll(content.getHeaders()),
+            content.getRows() != null
+                ? content.getRows().stream().map(CompiledTable::parseAll).toList()
+                : List.of(),
+            columnWidths,
+            tableStyle != null ? CompiledStyle.of(tableStyle.getHeaderStyle()) : null,
+            tableStyle != null ? CompiledStyle.of(tableStyle.getRowStyle()) : null,
+            tableStyle != null ? CompiledStyle.of(tableStyle.getAlternateRowStyle()) : null,
+            dataSource);
+    }
+
+    private static List<PlaceholderTemplate> parseAll(List<String> values) {
+        if (values == null) {
+            return List.of();
+        }
+        List<PlaceholderTemplate> parsed = new ArrayList<>(values.size());
+        for (String value : values) {
+            parsed.add(PlaceholderTemplate.parse(value != null ? value : ""));
+        }
+        return Collections.unmodifiableList(parsed);
+    }
+}
@@ -0,0 +1,55 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputProfile;
+import com.itextpdf.kernel.geom.PageSize;
+import lombok.Value;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable execution plan for a template. Built once per template version by
+ * {@link TemplateCompiler} so the per-request path only binds data.
+ */
+@Value
+public class CompiledTemplate {
+    String templateId;
+    long version;
+    PdfTemplate template;
+    /** Page size to use, or {@code null} to keep the iText default. */
+    PageSize pageSize;
+    /** Margins as top, right, bottom, left, or {@code null} to keep the iText default. */
+    float[] margins;
+    /** Writer settings, the template's own or {@code pdf.output.profile}. */
+    OutputProfile outputProfile;
+    List<CompiledElement> elements;
+    /** Runs of elements laid out once per template version, in element order. */
+    List<StaticFragment> fragments;
+
+    /**
+     * The fragment starting at the given element, or {@code null}.
+     */
+    public StaticFragment fragmentAt(int index) {
+        for (StaticFragment fragment : fragments) {
+            if (fragment.getStart() == index) {
+                return fragment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Names of the data entries tables take their rows from.
+     */
+    public Set<String> tableDataSources() {
+        Set<String> dataSources = new LinkedHashSet<>();
+        for (CompiledElement element : elements) {
+            if (element.getContent() instanceof CompiledTable table && table.getDataSource() != null) {
+                dataSources.add(table.getDataSource());
+            }
+        }
+        return dataSources;
+    }
+}
@@ -0,0 +1,23 @@
+package com.cg.pdfgenerator.engine;
+
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The static fragments copied into a single document. Every record of a merged document
+ * references the same copy, so a fragment is written to the output once.
+ */
+public class DocumentFragments {
+
+    private final Map<StaticFragment, PdfFormXObject> xObjects = new ConcurrentHashMap<>();
+
+    public PdfFormXObject get(StaticFragment fragment) {
+        return xObjects.get(fragment);
+    }
+
+    public void put(StaticFragment fragment, PdfFormXObject xObject) {
+        xObjects.put(fragment, xObject);
+    }
+}
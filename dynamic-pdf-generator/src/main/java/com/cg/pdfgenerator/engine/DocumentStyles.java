@@ -0,0 +1,72 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.itextpdf.layout.Style;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The iText styles of a single document, one per compiled style. Elements reference the
+ * shared {@link Style} instead of copying every property, so a table with thousands of
+ * cells resolves each of its styles once. Fonts are set as font families, so text the
+ * style's font cannot show falls back to the document's other fonts; styles are still
+ * per document, like everything else resolved against its fonts.
+ */
+@RequiredArgsConstructor
+public class DocumentStyles {
+
+    private final DocumentFonts fonts;
+    private final Map<CompiledStyle, Style> paragraphStyles = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Map<CompiledStyle, Style> cellStyles = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public Style forParagraph(CompiledStyle style) {
+        Style resolved = paragraphStyles.get(style);
+        if (resolved == null) {
+            resolved = build(style);
+            if (style.isUnderline()) {
+                resolved.setUnderline();
+            }
+            paragraphStyles.put(style, resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * Cell styles leave out underline, which would otherwise be inherited by the cell's text.
+     */
+    public Style forCell(CompiledStyle style) {
+        Style resolved = cellStyles.get(style);
+        if (resolved == null) {
+            resolved = build(style);
+            cellStyles.put(style, resolved);
+        }
+        return resolved;
+    }
+
+    private Style build(CompiledStyle style) {
+        Style resolved = new Style();
+
+        if (style.getFont() != null) {
+            resolved.setFontFamily(fonts.families(style.getFont()));
+        }
+        if (style.getFontSize() != null) {
+            resolved.setFontSize(style.getFontSize());
+        }
+        if (style.getFontColor() != null) {
+            resolved.setFontColor(style.getFontColor());
+        }
+        if (style.getBackgroundColor() != null) {
+            resolved.setBackgroundColor(style.getBackgroundColor());
+        }
+        if (style.hasBorder()) {
+            resolved.setBorder(style.getBorder());
+        }
+        if (style.getPadding() != null) {
+            resolved.setPadding(style.getPadding());
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,245 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.itextpdf.kernel.colors.Color;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
+import com.itextpdf.kernel.pdf.event.AbstractPdfDocumentEvent;
+import com.itextpdf.kernel.pdf.event.AbstractPdfDocumentEventHandler;
+import com.itextpdf.kernel.pdf.event.PdfDocumentEvent;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Canvas;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Div;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.element.Text;
+import com.itextpdf.layout.properties.VerticalAlignment;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Headers and footers repeated on every page of a single document, drawn into the page
+ * margins when iText finishes each page instead of being laid out in the flow.
+ *
+ * <p>Content without page placeholders is laid out once into a Form XObject that every
+ * page references. {@code {{pageNumber}}} is filled in per page, and
+ * {@code {{totalPages}}} refers to one XObject per decoration that is written when the
+ * document closes, so pages can be flushed long before the page count is known. Either
+ * way a page costs the same however long the document is.
+ *
+ * <p>A page shows the decorations in effect when it was started. iText finishes pages
+ * some time after layout has moved on, by when the next record of a merged document
+ * may have replaced them.
+ */
+public class PageDecorations extends AbstractPdfDocumentEventHandler {
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile("\\{\\{\\s*pageNumber\\s*}}");
+    private static final Pattern TOTAL_PAGES = Pattern.compile("\\{\\{\\s*totalPages\\s*}}");
+    // Room reserved for the page count; wider counts are squeezed in
+    private static final String TOTAL_PAGES_SAMPLE = "0000";
+
+    private final Document document;
+    private final DocumentFonts fonts;
+    private final Map<Object, Decoration> decorations = new LinkedHashMap<>();
+    private final Map<PdfPage, List<Decoration>> started = new IdentityHashMap<>();
+    // Each page count XObject with the decoration that writes it
+    private final Map<PdfFormXObject, Decoration> totals = new IdentityHashMap<>();
+    private boolean registered;
+
+    public PageDecorations(Document document, DocumentFonts fonts) {
+        this.document = document;
+        this.fonts = fonts;
+    }
+
+    /**
+     * Repeats the text at the top of every page started from now on. Adding text under
+     * the same key again, as every record of a merged document does, replaces it.
+     *
+     * @param style applies the element's font, size, color and alignment to a paragraph
+     * @param font  the font and size the text is set in, used to write the page count
+     */
+    public synchronized void addHeader(Object key, String text, UnaryOperator<Paragraph> style,
+                                       PdfFont font, float fontSize, Color color) {
+        add(key, new Decoration(true, text, style, font, fontSize, color));
+    }
+
+    /**
+     * Same as {@link #addHeader} for the bottom of every page.
+     */
+    public synchronized void addFooter(Object key, String text, UnaryOperator<Paragraph> style,
+                                       PdfFont font, float fontSize, Color color) {
+        add(key, new Decoration(false, text, style, font, fontSize, color));
+    }
+
+    @Override
+    protected synchronized void onAcceptedEvent(AbstractPdfDocumentEvent event) {
+        if (!(event instanceof PdfDocumentEvent pageEvent)) {
+            return;
+        }
+        switch (event.getType()) {
+            case PdfDocumentEvent.START_PAGE -> started.put(pageEvent.getPage(), List.copyOf(decorations.values()));
+            case PdfDocumentEvent.END_PAGE -> {
+                List<Decoration> shown = started.remove(pageEvent.getPage());
+                if (shown != null) {
+                    decorate(pageEvent.getPage(), shown);
+                }
+            }
+            case PdfDocumentEvent.START_DOCUMENT_CLOSING -> {
+                // Pages not flushed yet are finished after this event
+                started.forEach(this::decorate);
+                started.clear();
+                int totalPages = event.getDocument().getNumberOfPages();
+                totals.forEach((totalPagesXObject, decoration) -> decoration.writeTotalPages(totalPages));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void add(Object key, Decoration decoration) {
+        Decoration previous = decorations.put(key, decoration);
+        if (decoration.totalPages != null) {
+            if (previous != null && previous.totalPages != null) {
+                // Same element, same font: one page count serves every record
+                decoration.totalPages = previous.totalPages;
+            }
+            totals.putIfAbsent(decoration.totalPages, decoration);
+        }
+        if (!registered) {
+            PdfDocument pdfDoc = document.getPdfDocument();
+            pdfDoc.addEventHandler(PdfDocumentEvent.START_PAGE, this);
+            pdfDoc.addEventHandler(PdfDocumentEvent.END_PAGE, this);
+            pdfDoc.addEventHandler(PdfDocumentEvent.START_DOCUMENT_CLOSING, this);
+            registered = true;
+        }
+    }
+
+    private void decorate(PdfPage page, List<Decoration> shown) {
+        Rectangle pageSize = page.getPageSize();
+        PdfDocument pdfDoc = document.getPdfDocument();
+        int pageNumber = pdfDoc.getPageNumber(page);
+        PdfCanvas pdfCanvas = new PdfCanvas(page.newContentStreamAfter(), page.getResources(), pdfDoc);
+
+        for (Decoration decoration : shown) {
+            Rectangle area = decoration.header
+                    ? new Rectangle(pageSize.getLeft() + document.getLeftMargin(),
+                            pageSize.getTop() - document.getTopMargin(),
+                            pageSize.getWidth() - document.getLeftMargin() - document.getRightMargin(),
+                            document.getTopMargin())
+                    : new Rectangle(pageSize.getLeft() + document.getLeftMargin(), pageSize.getBottom(),
+                            pageSize.getWidth() - document.getLeftMargin() - document.getRightMargin(),
+                            document.getBottomMargin());
+            if (area.getWidth() <= 0 || area.getHeight() <= 0) {
+                continue;
+            }
+            if (decoration.perPage) {
+                try (Canvas canvas = newCanvas(new Canvas(pdfCanvas, area))) {
+                    canvas.add(decoration.layout(area, pageNumber));
+                }
+            } else {
+                pdfCanvas.addXObjectAt(decoration.form(area, pdfDoc), area.getX(), area.getY());
+            }
+        }
+    }
+
+    private Canvas newCanvas(Canvas canvas) {
+        canvas.setFontProvider(fonts.getProvider());
+        canvas.setFontFamily(fonts.defaultFamilies());
+        return canvas;
+    }
+
+    private final class Decoration {
+        final boolean header;
+        final String text;
+        final UnaryOperator<Paragraph> style;
+        final PdfFont font;
+        final float fontSize;
+        final Color color;
+        final boolean perPage;
+        PdfFormXObject form;
+        /** Deferred page count, {@code null} if the text does not show it. */
+        PdfFormXObject totalPages;
+
+        Decoration(boolean header, String text, UnaryOperator<Paragraph> style,
+                   PdfFont font, float fontSize, Color color) {
+            this.header = header;
+            this.text = text;
+            this.style = style;
+            this.font = font;
+            this.fontSize = fontSize;
+            this.color = color;
+            this.totalPages = TOTAL_PAGES.matcher(text).find()
+                    ? new PdfFormXObject(new Rectangle(font.getWidth(TOTAL_PAGES_SAMPLE, fontSize), fontSize))
+                    : null;
+            this.perPage = totalPages != null || PAGE_NUMBER.matcher(text).find();
+        }
+
+        /**
+         * The decoration laid out once for pages of the given size.
+         */
+        PdfFormXObject form(Rectangle area, PdfDocument pdfDoc) {
+            Rectangle bBox = new Rectangle(area.getWidth(), area.getHeight());
+            if (form == null || !form.getBBox().toRectangle().equalsWithEpsilon(bBox)) {
+                form = new PdfFormXObject(bBox);
+                try (Canvas canvas = newCanvas(new Canvas(form, pdfDoc))) {
+                    canvas.add(layout(bBox, 0));
+                }
+            }
+            return form;
+        }
+
+        /**
+         * The text as a paragraph centered vertically in the margin, with the page number
+         * filled in and the page count as a reference to the deferred XObject.
+         */
+        Div layout(Rectangle area, int pageNumber) {
+            String resolved = PAGE_NUMBER.matcher(text).replaceAll(String.valueOf(pageNumber));
+            String[] parts = TOTAL_PAGES.split(resolved, -1);
+
+            Paragraph paragraph = new Paragraph();
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    paragraph.add(new Image(totalPages));
+                }
+                if (!parts[i].isEmpty()) {
+                    paragraph.add(new Text(parts[i]));
+                }
+            }
+            style.apply(paragraph).setMargin(0);
+
+            return new Div()
+                    .setHeight(area.getHeight())
+                    .setVerticalAlignment(VerticalAlignment.MIDDLE)
+                    .add(paragraph);
+        }
+
+        /**
+         * Writes the page count on the baseline of the deferred XObject.
+         */
+        void writeTotalPages(int count) {
+            String digits = String.valueOf(count);
+            float width = font.getWidth(digits, fontSize);
+            float room = totalPages.getBBox().toRectangle().getWidth();
+
+            PdfCanvas canvas = new PdfCanvas(totalPages, document.getPdfDocument());
+            if (color != null) {
+                canvas.setFillColor(color);
+            }
+            canvas.beginText()
+                    .setFontAndSize(font, fontSize)
+                    .setHorizontalScaling(width > room ? 100 * room / width : 100)
+                    .moveText(0, 0)
+                    .showText(digits)
+                    .endText();
+        }
+    }
+}
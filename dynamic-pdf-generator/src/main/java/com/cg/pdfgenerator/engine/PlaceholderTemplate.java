@@ -0,0 +1,159 @@
+package com.cg.pdfgenerator.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content string tokenized once into literal and {@code {{variable}}} segments.
+ * Rendering is a single pass over the segments into a per-thread reusable buffer,
+ * so its cost depends on the number of placeholders, not on the size of the data map.
+ *
+ * <p>Variables are looked up as a flat key first ({@code data.get("customer.city")})
+ * and then as a path through nested maps ({@code customer -> address -> city}).
+ * Placeholders that resolve to nothing are written back unchanged, and {@code null}
+ * values render as an empty string.
+ */
+public final class PlaceholderTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    private final Segment[] segments;
+
+    private PlaceholderTemplate(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+    }
+
+    public static PlaceholderTemplate parse(String source) {
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            int close = open >= 0 ? source.indexOf(CLOSE, open + OPEN.length()) : -1;
+            if (open < 0 || close < 0) {
+                break;
+            }
+            if (open > position) {
+                segments.add(new Literal(source.substring(position, open)));
+            }
+            String name = source.substring(open + OPEN.length(), close).trim();
+            segments.add(new Variable(name, source.substring(open, close + CLOSE.length())));
+            position = close + CLOSE.length();
+        }
+        if (position < source.length()) {
+            segments.add(new Literal(source.substring(position)));
+        }
+
+        return new PlaceholderTemplate(source, segments.toArray(new Segment[0]));
+    }
+
+    /**
+     * Whether the content contains placeholders, i.e. whether rendering depends on the data.
+     */
+    public boolean hasPlaceholders() {
+        for (Segment segment : segments) {
+            if (segment instanceof Variable) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String render(Map<String, Object> data) {
+        if (segments.length == 0) {
+            return "";
+        }
+        if (segments.length == 1 && segments[0] instanceof Literal literal) {
+            return literal.text;
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        render(data, buffer);
+        String result = buffer.toString();
+
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    public void render(Map<String, Object> data, StringBuilder out) {
+        for (Segment segment : segments) {
+            segment.appendTo(out, data);
+        }
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private interface Segment {
+        void appendTo(StringBuilder out, Map<String, Object> data);
+    }
+
+    private record Literal(String text) implements Segment {
+        @Override
+        public void appendTo(StringBuilder out, Map<String, Object> data) {
+            out.append(text);
+        }
+    }
+
+    private static final class Variable implements Segment {
+        private static final Object MISSING = new Object();
+
+        private final String name;
+        private final String[] path;
+        private final String placeholder;
+
+        private Variable(String name, String placeholder) {
+            this.name = name;
+            this.path = name.indexOf('.') >= 0 ? name.split("\\.") : null;
+            this.placeholder = placeholder;
+        }
+
+        @Override
+        public void appendTo(StringBuilder out, Map<String, Object> data) {
+            Object value = lookup(data);
+            if (value == MISSING) {
+                out.append(placeholder);
+            } else if (value != null) {
+                out.append(value);
+            }
+        }
+
+        private Object lookup(Map<String, Object> data) {
+            if (data == null) {
+                return MISSING;
+            }
+            Object value = data.get(name);
+            if (value != null || data.containsKey(name)) {
+                return value;
+            }
+            if (path == null) {
+                return MISSING;
+            }
+
+            Object current = data;
+            for (String key : path) {
+                if (!(current instanceof Map<?, ?> map) || !map.containsKey(key)) {
+                    return MISSING;
+                }
+                current = map.get(key);
+            }
+            return current;
+        }
+    }
+}
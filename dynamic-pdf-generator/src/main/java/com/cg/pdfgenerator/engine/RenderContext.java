@@ -0,0 +1,34 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.cg.pdfgenerator.image.DocumentImages;
+import com.itextpdf.layout.Document;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Per-request state handed to element processors: the document being written,
+ * its fonts, images, styles, copied fragments and page decorations, and the data the compiled
+ * template is bound against.
+ */
+@Getter
+@RequiredArgsConstructor
+public class RenderContext {
+    private final Document document;
+    private final Map<String, Object> data;
+    private final DocumentFonts fonts;
+    private final DocumentImages images;
+    private final DocumentStyles styles;
+    private final DocumentFragments fragments;
+    private final PageDecorations decorations;
+
+    /**
+     * Context for the next record of a merged document, sharing its fonts, images, styles,
+     * fragments and page decorations.
+     */
+    public RenderContext withData(Map<String, Object> recordData) {
+        return new RenderContext(document, recordData, fonts, images, styles, fragments, decorations);
+    }
+}
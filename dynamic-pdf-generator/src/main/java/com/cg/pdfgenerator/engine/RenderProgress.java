@@ -0,0 +1,12 @@
+package com.cg.pdfgenerator.engine;
+
+/**
+ * Receives progress of a document while it is rendered, after every element.
+ */
+@FunctionalInterface
+public interface RenderProgress {
+
+    RenderProgress NONE = (elementsProcessed, pagesWritten) -> { };
+
+    void update(int elementsProcessed, int pagesWritten);
+}
@@ -0,0 +1,23 @@
+package com.cg.pdfgenerator.engine;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A run of consecutive elements whose output does not depend on the request data, such
+ * as a letterhead or terms and conditions. It is laid out once per template version and
+ * copied into each document as a Form XObject instead of being laid out again.
+ */
+@Getter
+@RequiredArgsConstructor
+public class StaticFragment {
+    /** Index of the first element in {@link CompiledTemplate#getElements()}. */
+    private final int start;
+    private final List<CompiledElement> elements;
+
+    public int size() {
+        return elements.size();
+    }
+}
@@ -0,0 +1,186 @@
+package com.cg.pdfgenerator.engine;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputProfile;
+import com.cg.pdfgenerator.processor.*;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.layout.properties.HorizontalAlignment;
+import com.itextpdf.layout.properties.TextAlignment;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns a {@link PdfTemplate} into a {@link CompiledTemplate}: processors are looked
+ * up, alignments and colors resolved and element content converted once, instead
+ * of on every generation request.
+ */
+@Component
+@Slf4j
+public class TemplateCompiler {
+
+    private final Map<String, ElementProcessor> processors = new HashMap<>();
+    private final PdfProperties.Render render;
+    private final OutputProfile defaultProfile;
+
+    public TemplateCompiler(ImageCache imageCache, PdfProperties properties) {
+        processors.put("TEXT", new TextElementProcessor());
+        processors.put("PARAGRAPH", new ParagraphElementProcessor());
+        processors.put("NUMBER", new NumberElementProcessor());
+        processors.put("TABLE", new TableElementProcessor(properties.getTables()));
+        processors.put("IMAGE", new ImageElementProcessor(imageCache));
+        processors.put("HEADER", new HeaderElementProcessor());
+        processors.put("FOOTER", new FooterElementProcessor());
+        this.render = properties.getRender();
+        this.defaultProfile = properties.getOutput().getProfile();
+    }
+
+    public CompiledTemplate compile(PdfTemplate template, long version) {
+        List<CompiledElement> elements = new ArrayList<>();
+        if (template.getElements() != null) {
+            for (PdfTemplate.Element element : template.getElements()) {
+                CompiledElement compiled = compileElement(element);
+                if (compiled != null) {
+                    elements.add(compiled);
+                }
+            }
+        }
+
+        PdfTemplate.PageSettings settings = template.getPageSettings();
+        return new CompiledTemplate(
+            template.getTemplateId(),
+            version,
+            template,
+            settings != null ? resolvePageSize(settings) : null,
+            settings != null ? resolveMargins(settings) : null,
+            resolveProfile(template),
+            Collections.unmodifiableList(elements),
+            findFragments(elements));
+    }
+
+    /**
+     * Groups consecutive elements whose output does not depend on the data. Runs with less
+     * text than {@code pdf.render.static-fragment-min-length} are left alone, as copying
+     * a fragment into a document costs about as much as laying out a few lines.
+     */
+    private List<StaticFragment> findFragments(List<CompiledElement> elements) {
+        if (!render.isStaticFragments()) {
+            return List.of();
+        }
+        List<StaticFragment> fragments = new ArrayList<>();
+        int start = -1;
+        int length = 0;
+        for (int i = 0; i <= elements.size(); i++) {
+            CompiledElement element = i < elements.size() ? elements.get(i) : null;
+            String text = element != null ? element.getProcessor().staticText(element) : null;
+            if (text != null) {
+                if (start < 0) {
+                    start = i;
+                    length = 0;
+                }
+                length += text.length();
+                continue;
+            }
+            if (start >= 0 && length >= render.getStaticFragmentMinLength()) {
+                fragments.add(new StaticFragment(start, List.copyOf(elements.subList(start, i))));
+            }
+            start = -1;
+        }
+        return List.copyOf(fragments);
+    }
+
+    private CompiledElement compileElement(PdfTemplate.Element element) {
+        String type = element.getType() != null ? element.getType().toUpperCase() : null;
+        ElementProcessor processor = type != null ? processors.get(type) : null;
+
+        if (processor == null) {
+            log.warn("No processor found for element type: {}", element.getType());
+            return null;
+        }
+
+        PdfTemplate.Position position = element.getPosition();
+        String alignment = position != null ? position.getAlignment() : null;
+
+        return CompiledElement.builder()
+            .id(element.getId())
+            .type(type)
+            .source(element)
+            .processor(processor)
+            .textAlignment(alignment != null ? resolveTextAlignment(alignment) : null)
+            .horizontalAlignment(alignment != null ? resolveHorizontalAlignment(alignment) : null)
+            .width(position != null ? position.getWidth() : null)
+            .height(position != null ? position.getHeight() : null)
+            .style(CompiledStyle.of(element.getStyle()))
+            .content(processor.compileContent(element))
+            .properties(element.getProperties() != null
+                ? Collections.unmodifiableMap(new HashMap<>(element.getProperties()))
+                : Map.of())
+            .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the template names an unknown profile
+     */
+    private OutputProfile resolveProfile(PdfTemplate template) {
+        OutputProfile profile = OutputProfile.of(template.getOutputProfile());
+        return profile != null ? profile : defaultProfile;
+    }
+
+    private PageSize resolvePageSize(PdfTemplate.PageSettings settings) {
+        PageSize pageSize = getPageSize(settings.getSize());
+
+        if ("LANDSCAPE".equalsIgnoreCase(settings.getOrientation())) {
+            pageSize = pageSize.rotate();
+        }
+
+        return pageSize;
+    }
+
+    private float[] resolveMargins(PdfTemplate.PageSettings settings) {
+        float top = settings.getMarginTop() != null ? settings.getMarginTop() : 36f;
+        float bottom = settings.getMarginBottom() != null ? settings.getMarginBottom() : 36f;
+        float left = settings.getMarginLeft() != null ? settings.getMarginLeft() : 36f;
+        float right = settings.getMarginRight() != null ? settings.getMarginRight() : 36f;
+
+        return new float[] {top, right, bottom, left};
+    }
+
+    private PageSize getPageSize(String size) {
+        if (size == null) {
+            return PageSize.A4;
+        }
+
+        return switch (size.toUpperCase()) {
+            case "LETTER" -> PageSize.LETTER;
+            case "LEGAL" -> PageSize.LEGAL;
+            case "A3" -> PageSize.A3;
+            case "A5" -> PageSize.A5;
+            case "TABLOID" -> PageSize.TABLOID;
+            default -> PageSize.A4;
+        };
+    }
+
+    private TextAlignment resolveTextAlignment(String alignment) {
+        return switch (alignment.toUpperCase()) {
+            case "CENTER" -> TextAlignment.CENTER;
+            case "RIGHT" -> TextAlignment.RIGHT;
+            case "JUSTIFY" -> TextAlignment.JUSTIFIED;
+            default -> TextAlignment.LEFT;
+        };
+    }
+
+    private HorizontalAlignment resolveHorizontalAlignment(String alignment) {
+        return switch (alignment.toUpperCase()) {
+            case "CENTER" -> HorizontalAlignment.CENTER;
+            case "RIGHT" -> HorizontalAlignment.RIGHT;
+            default -> HorizontalAlignment.LEFT;
+        };
+    }
+}
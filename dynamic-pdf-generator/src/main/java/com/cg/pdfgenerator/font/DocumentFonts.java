@@ -0,0 +1,65 @@
+package com.cg.pdfgenerator.font;
+
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.layout.font.FontInfo;
+import com.itextpdf.layout.font.FontProvider;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fonts of a single document. Every font is created at most once per document,
+ * so styled paragraphs and table cells share one font dictionary in the output.
+ *
+ * <p>Text laid out by font family goes through the document's {@link FontProvider},
+ * which falls back to another font of the shared {@link FallbackFonts} for characters
+ * the requested font lacks, and embeds only the glyphs used.
+ */
+public class DocumentFonts {
+
+    private final FontRegistry registry;
+    private final FallbackFonts fallback;
+    @Getter
+    private final FontProvider provider;
+    private final Map<String, PdfFont> fonts = new ConcurrentHashMap<>();
+
+    public DocumentFonts(FontRegistry registry, FallbackFonts fallback) {
+        this.registry = registry;
+        this.fallback = fallback;
+        this.provider = fallback.newProvider();
+    }
+
+    /**
+     * The document's font for a font name or path. Fonts of the fallback set come from the
+     * provider, so text set explicitly in them shares the font dictionary with text that
+     * fell back to them.
+     */
+    public PdfFont get(String font) throws IOException {
+        FontInfo info = fallback.find(font);
+        if (info != null) {
+            return provider.getPdfFont(info);
+        }
+        PdfFont pdfFont = fonts.get(font);
+        if (pdfFont == null) {
+            pdfFont = registry.createFont(font);
+            PdfFont existing = fonts.putIfAbsent(font, pdfFont);
+            if (existing != null) {
+                pdfFont = existing;
+            }
+        }
+        return pdfFont;
+    }
+
+    /**
+     * Font families for text set in {@code font}, with fallbacks; see {@link FallbackFonts#familiesFor}.
+     */
+    public String[] families(String font) {
+        return fallback.familiesFor(font);
+    }
+
+    public String[] defaultFamilies() {
+        return fallback.defaultFamilies();
+    }
+}
@@ -0,0 +1,67 @@
+package com.cg.pdfgenerator.font;
+
+import com.itextpdf.layout.font.FontInfo;
+import com.itextpdf.layout.font.FontProvider;
+import com.itextpdf.layout.font.FontSet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The fonts iText may pick from, per run of text, when the requested font has no glyph
+ * for a character. The {@link FontSet} holds the parsed font programs and is shared by
+ * all documents; each document gets its own {@link FontProvider}, because the provider
+ * keeps the {@code PdfFont}s it creates.
+ */
+public final class FallbackFonts {
+
+    private final FontSet fontSet;
+    private final String defaultFont;
+    private final List<String> fallbacks;
+    private final Map<String, FontInfo> byAlias = new HashMap<>();
+
+    FallbackFonts(FontSet fontSet, String defaultFont, List<String> fallbacks) {
+        this.fontSet = fontSet;
+        this.defaultFont = defaultFont;
+        this.fallbacks = List.copyOf(fallbacks);
+        for (FontInfo info : fontSet.getFonts()) {
+            byAlias.put(info.getAlias(), info);
+        }
+    }
+
+    public FontProvider newProvider() {
+        return new FontProvider(fontSet, defaultFont);
+    }
+
+    /**
+     * The font family list for text set in {@code font}: the font itself, then the
+     * fallback fonts in order.
+     */
+    public String[] familiesFor(String font) {
+        List<String> families = new ArrayList<>(fallbacks.size() + 1);
+        families.add(font);
+        for (String fallback : fallbacks) {
+            if (!fallback.equals(font)) {
+                families.add(fallback);
+            }
+        }
+        return families.toArray(new String[0]);
+    }
+
+    /**
+     * The set's entry for a font name or path, {@code null} if the font is not in the set.
+     */
+    FontInfo find(String font) {
+        return byAlias.get(font);
+    }
+
+    public String[] defaultFamilies() {
+        return familiesFor(defaultFont);
+    }
+
+    public int size() {
+        return fontSet.size();
+    }
+}
@@ -0,0 +1,137 @@
+package com.cg.pdfgenerator.font;
+
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.io.font.constants.StandardFonts;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.layout.font.FontSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Application-wide cache of parsed {@link FontProgram}s, keyed by standard font name
+ * or font file path. Parsing a font file is the expensive part, so it happens once
+ * per font; {@link PdfFont}s are cheap wrappers that belong to a single document and
+ * are handed out per document through {@link DocumentFonts}.
+ */
+@Component
+@Slf4j
+public class FontRegistry {
+
+    private final Map<String, FontProgram> programs = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public FontProgram getFontProgram(String font) throws IOException {
+        FontProgram program = programs.get(font);
+        if (program != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            program = loadFontProgram(font);
+            FontProgram existing = programs.putIfAbsent(font, program);
+            if (existing != null) {
+                program = existing;
+            }
+        }
+        return program;
+    }
+
+    /**
+     * Parses the given fonts ahead of the first request. Fonts that cannot be found
+     * are logged and skipped, they fail again (and fall back) when actually requested.
+     */
+    public void preload(Collection<String> fonts) {
+        for (String font : fonts) {
+            try {
+                getFontProgram(font);
+            } catch (IOException e) {
+                log.info("Font not preloaded: {} ({})", font, e.getMessage());
+            }
+        }
+        log.info("Font registry holds {} font programs", programs.size());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return programs.size();
+    }
+
+    public void evict(String font) {
+        programs.remove(font);
+    }
+
+    /**
+     * Creates a new {@link PdfFont} for the font. The result must only be used in one document.
+     */
+    public PdfFont createFont(String font) throws IOException {
+        FontProgram program = getFontProgram(font);
+        if (StandardFonts.isStandardFont(font)) {
+            return PdfFontFactory.createFont(program, encodingOf(font),
+                PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+        }
+        return PdfFontFactory.createFont(program, encodingOf(font),
+            PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+    }
+
+    /**
+     * Builds a {@link FontSet} over the given fonts, each registered under its name or
+     * path as family alias. Fonts that cannot be loaded are left out. All loaded fonts
+     * other than the standard ones become fallbacks, in the given order.
+     */
+    public FallbackFonts createFallbackFonts(String defaultFont, Collection<String> fonts) {
+        FontSet fontSet = new FontSet();
+        List<String> fallbacks = new ArrayList<>();
+        for (String font : fonts) {
+            try {
+                if (fontSet.addFont(getFontProgram(font), encodingOf(font), font) && !StandardFonts.isStandardFont(font)) {
+                    fallbacks.add(font);
+                }
+            } catch (IOException e) {
+                log.info("Font not available for fallback: {} ({})", font, e.getMessage());
+            }
+        }
+        log.info("Font fallback uses {} of {} fonts: {}", fontSet.size(), fonts.size(), fallbacks);
+        return new FallbackFonts(fontSet, defaultFont, fallbacks);
+    }
+
+    private static String encodingOf(String font) {
+        return StandardFonts.isStandardFont(font) ? PdfEncodings.WINANSI : PdfEncodings.IDENTITY_H;
+    }
+
+    private FontProgram loadFontProgram(String font) throws IOException {
+        if (StandardFonts.isStandardFont(font)) {
+            return FontProgramFactory.createFont(font);
+        }
+
+        if (new File(font).isFile()) {
+            return FontProgramFactory.createFont(font);
+        }
+
+        try (InputStream in = FontRegistry.class.getClassLoader().getResourceAsStream(font)) {
+            if (in == null) {
+                throw new IOException("Font not found on file system or classpath: " + font);
+            }
+            return FontProgramFactory.createFont(in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.cg.pdfgenerator.font;
+
+import java.util.List;
+
+/**
+ * Result of {@link ScriptDetector#analyze}: the language the text is predominantly
+ * written in and its script runs, in text order.
+ */
+public record ScriptAnalysis(String dominantLanguage, List<ScriptRun> runs) {
+}
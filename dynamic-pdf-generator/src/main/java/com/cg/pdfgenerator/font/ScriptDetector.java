@@ -0,0 +1,162 @@
+package com.cg.pdfgenerator.font;
+
+import java.lang.Character.UnicodeScript;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Detects the scripts of a text in a single pass over its code points, using the JDK's
+ * Unicode script table. Scripts are reported as the language keys fonts are configured
+ * for; scripts without a dedicated font count as {@code ENGLISH}.
+ *
+ * <p>Spaces, digits and punctuation are script-neutral: they never start a run of their
+ * own but extend the run they are in. Han characters in text that also contains kana
+ * are Japanese, and in text that contains Hangul they are Korean.
+ */
+public final class ScriptDetector {
+
+    public static final String DEFAULT_LANGUAGE = "ENGLISH";
+
+    private static final String[] LANGUAGES = {
+            DEFAULT_LANGUAGE, "CHINESE", "JAPANESE", "KOREAN", "ARABIC",
+            "HINDI", "THAI", "HEBREW", "CYRILLIC", "TAMIL"
+    };
+    private static final int DEFAULT = 0;
+    private static final int CHINESE = 1;
+    private static final int JAPANESE = 2;
+    private static final int KOREAN = 3;
+    private static final int NEUTRAL = -1;
+
+    /** Language index per {@link UnicodeScript} ordinal. */
+    private static final int[] SCRIPT_LANGUAGE = new int[UnicodeScript.values().length];
+
+    static {
+        Arrays.fill(SCRIPT_LANGUAGE, DEFAULT);
+        SCRIPT_LANGUAGE[UnicodeScript.COMMON.ordinal()] = NEUTRAL;
+        SCRIPT_LANGUAGE[UnicodeScript.INHERITED.ordinal()] = NEUTRAL;
+        SCRIPT_LANGUAGE[UnicodeScript.UNKNOWN.ordinal()] = NEUTRAL;
+        SCRIPT_LANGUAGE[UnicodeScript.HAN.ordinal()] = CHINESE;
+        SCRIPT_LANGUAGE[UnicodeScript.HIRAGANA.ordinal()] = JAPANESE;
+        SCRIPT_LANGUAGE[UnicodeScript.KATAKANA.ordinal()] = JAPANESE;
+        SCRIPT_LANGUAGE[UnicodeScript.HANGUL.ordinal()] = KOREAN;
+        SCRIPT_LANGUAGE[UnicodeScript.ARABIC.ordinal()] = 4;
+        SCRIPT_LANGUAGE[UnicodeScript.DEVANAGARI.ordinal()] = 5;
+        SCRIPT_LANGUAGE[UnicodeScript.THAI.ordinal()] = 6;
+        SCRIPT_LANGUAGE[UnicodeScript.HEBREW.ordinal()] = 7;
+        SCRIPT_LANGUAGE[UnicodeScript.CYRILLIC.ordinal()] = 8;
+        SCRIPT_LANGUAGE[UnicodeScript.TAMIL.ordinal()] = 9;
+    }
+
+    private ScriptDetector() {
+    }
+
+    /**
+     * The non-Latin script with the most characters, or {@code ENGLISH} if there is none.
+     */
+    public static String detectLanguage(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return DEFAULT_LANGUAGE;
+        }
+        return LANGUAGES[dominant(count(text, null))];
+    }
+
+    /**
+     * The dominant language together with the runs of the text, from the same single pass.
+     */
+    public static ScriptAnalysis analyze(CharSequence text) {
+        if (text == null || text.isEmpty()) {
+            return new ScriptAnalysis(DEFAULT_LANGUAGE, List.of());
+        }
+
+        List<int[]> runs = new ArrayList<>();
+        int[] counts = count(text, runs);
+        int hanLanguage = hanLanguage(counts);
+
+        List<ScriptRun> scriptRuns = new ArrayList<>(runs.size());
+        for (int[] run : runs) {
+            int language = run[0] == CHINESE ? hanLanguage : run[0];
+            int last = scriptRuns.size() - 1;
+            if (last >= 0 && scriptRuns.get(last).language().equals(LANGUAGES[language])) {
+                // Han and kana runs of Japanese text join up once both are Japanese
+                scriptRuns.set(last, new ScriptRun(LANGUAGES[language], scriptRuns.get(last).start(), run[2]));
+            } else {
+                scriptRuns.add(new ScriptRun(LANGUAGES[language], run[1], run[2]));
+            }
+        }
+        return new ScriptAnalysis(LANGUAGES[dominant(counts)], scriptRuns);
+    }
+
+    /**
+     * Counts code points per language and, if {@code runs} is given, collects
+     * {@code {language, start, end}} runs along the way.
+     */
+    private static int[] count(CharSequence text, List<int[]> runs) {
+        int[] counts = new int[LANGUAGES.length];
+        int[] current = null;
+        int length = text.length();
+
+        for (int i = 0; i < length; ) {
+            int codePoint = Character.codePointAt(text, i);
+            int next = i + Character.charCount(codePoint);
+            int language = languageOf(codePoint);
+
+            if (language != NEUTRAL) {
+                counts[language]++;
+            }
+            if (runs != null) {
+                if (current == null) {
+                    current = new int[] {language, 0, next};
+                    runs.add(current);
+                } else if (language == NEUTRAL || language == current[0]) {
+                    current[2] = next;
+                } else if (current[0] == NEUTRAL) {
+                    // Leading neutral characters belong to the first real run
+                    current[0] = language;
+                    current[2] = next;
+                } else {
+                    current = new int[] {language, i, next};
+                    runs.add(current);
+                }
+            }
+            i = next;
+        }
+
+        if (current != null && current[0] == NEUTRAL) {
+            current[0] = DEFAULT;
+        }
+        return counts;
+    }
+
+    private static int languageOf(int codePoint) {
+        if (codePoint < 0x80) {
+            return (codePoint | 0x20) >= 'a' && (codePoint | 0x20) <= 'z' ? DEFAULT : NEUTRAL;
+        }
+        return SCRIPT_LANGUAGE[UnicodeScript.of(codePoint).ordinal()];
+    }
+
+    private static int hanLanguage(int[] counts) {
+        if (counts[JAPANESE] > 0) {
+            return JAPANESE;
+        }
+        return counts[KOREAN] > 0 ? KOREAN : CHINESE;
+    }
+
+    private static int dominant(int[] counts) {
+        int hanLanguage = hanLanguage(counts);
+        if (hanLanguage != CHINESE) {
+            counts[hanLanguage] += counts[CHINESE];
+            counts[CHINESE] = 0;
+        }
+
+        int dominant = DEFAULT;
+        int max = 0;
+        for (int language = DEFAULT + 1; language < counts.length; language++) {
+            if (counts[language] > max) {
+                max = counts[language];
+                dominant = language;
+            }
+        }
+        return dominant;
+    }
+}
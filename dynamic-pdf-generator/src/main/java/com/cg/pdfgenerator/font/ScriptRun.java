@@ -0,0 +1,12 @@
+package com.cg.pdfgenerator.font;
+
+/**
+ * A stretch of text in one script, as {@code [start, end)} char offsets into the analyzed
+ * text, with the language key used to pick its font ({@code ENGLISH}, {@code ARABIC}, ...).
+ */
+public record ScriptRun(String language, int start, int end) {
+
+    public String textOf(CharSequence text) {
+        return text.subSequence(start, end).toString();
+    }
+}
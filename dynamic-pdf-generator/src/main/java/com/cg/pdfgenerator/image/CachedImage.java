@@ -0,0 +1,10 @@
+package com.cg.pdfgenerator.image;
+
+import com.itextpdf.io.image.ImageData;
+
+/**
+ * A decoded image with the SHA-256 of the bytes it was decoded from, hex encoded. Images
+ * loaded from different sources but with the same content have the same hash.
+ */
+public record CachedImage(ImageData data, String contentHash) {
+}
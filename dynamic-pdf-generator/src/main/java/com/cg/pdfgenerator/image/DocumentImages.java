@@ -0,0 +1,37 @@
+package com.cg.pdfgenerator.image;
+
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The image XObjects of a single document. An image referenced several times, or by
+ * every record of a merged document, is written to the output once and then only
+ * referenced from each page. Images are told apart by content, so the same logo loaded
+ * from a URL in one element and inline in another is written once too.
+ */
+@RequiredArgsConstructor
+public class DocumentImages {
+
+    private final ImageCache cache;
+    private final Map<String, PdfImageXObject> bySource = new ConcurrentHashMap<>();
+    private final Map<String, PdfImageXObject> byContent = new ConcurrentHashMap<>();
+
+    /**
+     * The XObject of the image shown in a box of the given size in points, see
+     * {@link ImageCache#get}.
+     */
+    public PdfImageXObject get(String source, Float width, Float height) throws IOException {
+        String key = cache.keyOf(source, width, height);
+        PdfImageXObject xObject = bySource.get(key);
+        if (xObject == null) {
+            CachedImage image = cache.get(source, width, height);
+            xObject = byContent.computeIfAbsent(image.contentHash(), hash -> new PdfImageXObject(image.data()));
+            bySource.putIfAbsent(key, xObject);
+        }
+        return xObject;
+    }
+}
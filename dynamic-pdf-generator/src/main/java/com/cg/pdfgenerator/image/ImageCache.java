@@ -0,0 +1,311 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decoded images shared across requests, bounded by total image bytes (not entry count)
+ * with least-recently-used eviction and a time-to-live. Keys are the URL or file path,
+ * or a SHA-256 of the payload for inline base64 images. Images shown in a box of known
+ * size are downsampled to {@code pdf.images.max-dpi} first, see {@link ImageDownsampler},
+ * and cached per pixel size.
+ *
+ * <p>Concurrent requests for the same missing image share one load, and
+ * {@link #prefetch} starts loads in the background so remote fetches of a template
+ * overlap with each other and with layout of the elements before them. A prefetch still
+ * queued when the image is needed is taken over by the thread that needs it, so threads
+ * of the shared executor never wait for loads queued behind them.
+ *
+ * <p>Failed loads are remembered for {@code pdf.images.failure-ttl}, so an unreachable
+ * image fails the requests showing it at once instead of each waiting for the timeouts.
+ */
+@Component
+@Slf4j
+public class ImageCache {
+
+    private final ImageLoader loader;
+    private final ImageDownsampler downsampler;
+    private final Executor executor;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final long failureTtlMillis;
+    private final long loadTimeoutMillis;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, Load> loading = new ConcurrentHashMap<>();
+    private final Map<String, Failure> failures = new ConcurrentHashMap<>();
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong loadFailures = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+
+    public ImageCache(PdfProperties properties,
+                      @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.loader = new ImageLoader(properties.getImages());
+        this.downsampler = new ImageDownsampler(properties.getImages());
+        this.executor = executor;
+        this.maxBytes = properties.getImages().getCacheMaxSize().toBytes();
+        this.ttlMillis = properties.getImages().getCacheTtl().toMillis();
+        this.failureTtlMillis = properties.getImages().getFailureTtl().toMillis();
+        this.loadTimeoutMillis = properties.getImages().getLoadTimeout().toMillis();
+    }
+
+    /**
+     * Returns the decoded image, waiting for a load in progress or loading it on the calling
+     * thread. The image is downsampled to fit a box of the given size in points, either of
+     * which may be null.
+     *
+     * @throws IOException if the image cannot be loaded or failed to load recently, or a
+     *                     load in progress takes longer than {@code pdf.images.load-timeout}
+     */
+    public CachedImage get(String source, Float width, Float height) throws IOException {
+        ImageDownsampler.Target target = downsampler.targetOf(width, height);
+        String key = keyOf(source, target);
+
+        CachedImage cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Failure failure = recentFailure(key);
+        if (failure != null) {
+            throw new IOException("Failed to load image less than " + failureTtlMillis + " ms ago: " + source,
+                    failure.cause);
+        }
+
+        Load load = loading.computeIfAbsent(key, k -> new Load(k, source, target));
+        // Loads here unless another thread already started it
+        load.run();
+        return await(load.result, source);
+    }
+
+    /**
+     * Starts loading the image for {@link #get} unless it is cached, already loading or
+     * failed to load recently, without waiting for it.
+     */
+    public void prefetch(String source, Float width, Float height) {
+        ImageDownsampler.Target target = downsampler.targetOf(width, height);
+        String key = keyOf(source, target);
+        if (lookup(key) != null || loading.containsKey(key) || recentFailure(key) != null) {
+            return;
+        }
+        Load own = new Load(key, source, target);
+        if (loading.putIfAbsent(key, own) == null) {
+            try {
+                executor.execute(own::run);
+            } catch (RejectedExecutionException e) {
+                // Loaded by the first get instead
+            }
+        }
+    }
+
+    /**
+     * The key the image is cached under for a box of the given size, see {@link #get}.
+     */
+    public String keyOf(String source, Float width, Float height) {
+        return keyOf(source, downsampler.targetOf(width, height));
+    }
+
+    public ImageCacheStats getStats() {
+        synchronized (entries) {
+            return new ImageCacheStats(hits.get(), misses.get(), evictions.get(), loadFailures.get(),
+                loads.get(), loadNanos.get(), entries.size(), totalBytes, maxBytes);
+        }
+    }
+
+    private void complete(Load load) {
+        // A load that finished just before this one was claimed already cached the image
+        CachedImage cached = lookup(load.key);
+        if (cached != null) {
+            load.result.complete(cached);
+            loading.remove(load.key, load);
+            return;
+        }
+        long start = System.nanoTime();
+        CachedImage image = null;
+        Exception failure = null;
+        try {
+            byte[] bytes = loader.load(load.source);
+            if (load.target != null) {
+                bytes = downsampler.downsample(bytes, load.target);
+            }
+            ImageData imageData = ImageDataFactory.create(bytes);
+            image = new CachedImage(imageData, HexFormat.of().formatHex(sha256().digest(bytes)));
+            store(load.key, image, weigh(bytes, imageData));
+        } catch (Exception e) {
+            loadFailures.incrementAndGet();
+            remember(load.key, e);
+            failure = e;
+        }
+        // Counted before waiters are released, so the stats they read include this load
+        loads.incrementAndGet();
+        loadNanos.addAndGet(System.nanoTime() - start);
+        loading.remove(load.key, load);
+        if (failure != null) {
+            load.result.completeExceptionally(failure);
+        } else {
+            load.result.complete(image);
+        }
+    }
+
+    private CachedImage await(CompletableFuture<CachedImage> pending, String source) throws IOException {
+        try {
+            return pending.get(loadTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out after " + loadTimeoutMillis + " ms waiting for image: " + source);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for image: " + source, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IOException("Failed to load image: " + source, cause);
+        }
+    }
+
+    private CachedImage lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() - entry.loadedAt > ttlMillis) {
+                entries.remove(key);
+                totalBytes -= entry.bytes;
+                return null;
+            }
+            return entry.image;
+        }
+    }
+
+    private Failure recentFailure(String key) {
+        Failure failure = failures.get(key);
+        if (failure == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - failure.failedAt > failureTtlMillis) {
+            failures.remove(key, failure);
+            return null;
+        }
+        return failure;
+    }
+
+    private void remember(String key, Exception cause) {
+        if (failureTtlMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        // Expired failures of images nobody asks for again would otherwise stay forever
+        failures.values().removeIf(failure -> now - failure.failedAt > failureTtlMillis);
+        failures.put(key, new Failure(cause, now));
+    }
+
+    private void store(String key, CachedImage image, long bytes) {
+        if (bytes > maxBytes) {
+            log.debug("Image {} ({} bytes) exceeds the cache size and is not cached", key, bytes);
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(image, bytes, System.currentTimeMillis()));
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+            totalBytes += bytes;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                totalBytes -= evicted.bytes;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static long weigh(byte[] encoded, ImageData imageData) {
+        byte[] decoded = imageData.getData();
+        return Math.max(encoded.length, decoded != null ? decoded.length : 0);
+    }
+
+    private static String keyOf(String source, ImageDownsampler.Target target) {
+        return target != null ? keyOf(source) + "@" + target : keyOf(source);
+    }
+
+    static String keyOf(String source) {
+        if (!ImageLoader.isInline(source)) {
+            return source;
+        }
+        return "sha256:" + HexFormat.of().formatHex(sha256().digest(source.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Entry(CachedImage image, long bytes, long loadedAt) {
+    }
+
+    private record Failure(Exception cause, long failedAt) {
+    }
+
+    /**
+     * One load of an image, shared by everyone asking for it while it is in progress.
+     * Run by whichever thread gets to it first: the prefetch task or a caller of {@link #get}.
+     */
+    private final class Load {
+        private final String key;
+        private final String source;
+        private final ImageDownsampler.Target target;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<CachedImage> result = new CompletableFuture<>();
+
+        Load(String key, String source, ImageDownsampler.Target target) {
+            this.key = key;
+            this.source = source;
+            this.target = target;
+        }
+
+        void run() {
+            if (started.compareAndSet(false, true)) {
+                complete(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.cg.pdfgenerator.image;
+
+/**
+ * Point-in-time counters of the {@link ImageCache}. {@code loads} and {@code loadNanos}
+ * cover fetching and decoding, successful or not.
+ */
+public record ImageCacheStats(long hits, long misses, long evictions, long loadFailures,
+                              long loads, long loadNanos, int entries, long bytes, long maxBytes) {
+}
@@ -0,0 +1,208 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Scales images down to the resolution they are shown at before iText embeds them: a
+ * 12-megapixel photo shown 120pt wide needs 250 pixels across at 150 DPI, not 4,000.
+ *
+ * <p>JPEG images are written as JPEG again at {@code pdf.images.jpeg-quality}, everything
+ * else as PNG, with a palette if it has no more than 256 colors, so line art and
+ * transparency come through unchanged. Large images are subsampled while they are read,
+ * so they are never decoded at full size. The result is only used if it is smaller than
+ * the original.
+ */
+@Slf4j
+class ImageDownsampler {
+
+    private static final float POINTS_PER_INCH = 72f;
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    private final int maxDpi;
+    private final float jpegQuality;
+
+    ImageDownsampler(PdfProperties.Images properties) {
+        this.maxDpi = properties.getMaxDpi();
+        this.jpegQuality = properties.getJpegQuality();
+    }
+
+    /**
+     * The pixel bounds of an image shown in a box of the given size in points, either of
+     * which may be null; null if the image is embedded as it is.
+     */
+    Target targetOf(Float width, Float height) {
+        int maxWidth = pixels(width);
+        int maxHeight = pixels(height);
+        if (maxDpi <= 0 || maxWidth == 0 && maxHeight == 0) {
+            return null;
+        }
+        return new Target(maxWidth, maxHeight);
+    }
+
+    /**
+     * The image scaled to fit the target, or the original bytes if it already fits or
+     * cannot be read by ImageIO.
+     */
+    byte[] downsample(byte[] encoded, Target target) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return encoded;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                double scale = target.scaleOf(sourceWidth, sourceHeight);
+                if (scale >= 1) {
+                    return encoded;
+                }
+                int width = Math.max(1, (int) Math.round(sourceWidth * scale));
+                int height = Math.max(1, (int) Math.round(sourceHeight * scale));
+
+                // Every n-th pixel while reading, keeping twice the target for a smooth final scale
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, (int) (1 / (scale * 2)));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                boolean jpeg = "jpeg".equalsIgnoreCase(reader.getFormatName());
+                byte[] downsampled = jpeg
+                        ? writeJpeg(scale(source, width, height, false))
+                        : writePng(scale(source, width, height, source.getColorModel().hasAlpha()));
+                log.debug("Downsampled {}x{} image to {}x{}: {} -> {} bytes",
+                        sourceWidth, sourceHeight, width, height, encoded.length, downsampled.length);
+                return downsampled.length < encoded.length ? downsampled : encoded;
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            // CMYK JPEGs and other formats ImageIO cannot decode are left to iText
+            log.debug("Image not downsampled: {}", e.getMessage());
+            return encoded;
+        }
+    }
+
+    private int pixels(Float points) {
+        return points != null && points > 0 ? (int) Math.ceil(points / POINTS_PER_INCH * maxDpi) : 0;
+    }
+
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean alpha) {
+        int type = source.getColorModel().getNumColorComponents() == 1 && !alpha
+                ? BufferedImage.TYPE_BYTE_GRAY
+                : alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage scaled = new BufferedImage(width, height, type);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] writeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] writePng(BufferedImage image) throws IOException {
+        BufferedImage palette = toPalette(image);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(palette != null ? palette : image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * The image with an exact palette of its colors, or null if it has more than 256.
+     */
+    private static BufferedImage toPalette(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            return null; // already one byte per pixel
+        }
+        Map<Integer, Integer> colors = new LinkedHashMap<>();
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int pixel : pixels) {
+            if (colors.putIfAbsent(pixel, colors.size()) == null && colors.size() > MAX_PALETTE_SIZE) {
+                return null;
+            }
+        }
+
+        int size = colors.size();
+        byte[] reds = new byte[size];
+        byte[] greens = new byte[size];
+        byte[] blues = new byte[size];
+        byte[] alphas = new byte[size];
+        colors.forEach((argb, index) -> {
+            alphas[index] = (byte) (argb >>> 24);
+            reds[index] = (byte) (argb >> 16);
+            greens[index] = (byte) (argb >> 8);
+            blues[index] = (byte) (int) argb;
+        });
+        IndexColorModel model = new IndexColorModel(8, size, reds, greens, blues, alphas);
+        BufferedImage indexed = new BufferedImage(image.getWidth(), image.getHeight(),
+                BufferedImage.TYPE_BYTE_INDEXED, model);
+        byte[] indices = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            indices[i] = (byte) (int) colors.get(pixels[i]);
+        }
+        indexed.getRaster().setDataElements(0, 0, image.getWidth(), image.getHeight(), indices);
+        return indexed;
+    }
+
+    /**
+     * Pixel bounds of a downsampled image; 0 leaves a side unbounded.
+     */
+    record Target(int maxWidth, int maxHeight) {
+
+        double scaleOf(int width, int height) {
+            double scale = 1;
+            if (maxWidth > 0) {
+                scale = Math.min(scale, (double) maxWidth / width);
+            }
+            if (maxHeight > 0) {
+                scale = Math.min(scale, (double) maxHeight / height);
+            }
+            return scale;
+        }
+
+        @Override
+        public String toString() {
+            return maxWidth + "x" + maxHeight;
+        }
+    }
+}
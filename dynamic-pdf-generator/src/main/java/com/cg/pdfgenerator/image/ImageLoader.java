@@ -0,0 +1,68 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import lombok.RequiredArgsConstructor;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Base64;
+
+/**
+ * Reads the raw bytes of an image source: an inline {@code data:image} URI,
+ * an http(s) URL or a local file path.
+ */
+@RequiredArgsConstructor
+class ImageLoader {
+
+    private final PdfProperties.Images properties;
+
+    static boolean isInline(String source) {
+        return source.startsWith("data:image");
+    }
+
+    static boolean isRemote(String source) {
+        return source.startsWith("http://") || source.startsWith("https://");
+    }
+
+    byte[] load(String source) throws IOException {
+        if (isInline(source)) {
+            // Base64 image (inline)
+            String base64Data = source.substring(source.indexOf(",") + 1);
+            return Base64.getDecoder().decode(base64Data);
+        }
+
+        if (isRemote(source)) {
+            return loadRemoteImageWithUserAgent(source);
+        }
+
+        // Local file path
+        File imageFile = new File(source);
+        if (!imageFile.exists()) {
+            throw new FileNotFoundException("Image file not found: " + source);
+        }
+        return Files.readAllBytes(imageFile.toPath());
+    }
+
+    /**
+     * Loads remote image with a browser-like User-Agent header to bypass 403 restrictions.
+     */
+    private byte[] loadRemoteImageWithUserAgent(String imageUrl) throws IOException {
+        URL url = new URL(imageUrl);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestProperty("User-Agent",
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) " +
+                "AppleWebKit/537.36 (KHTML, like Gecko) " +
+                "Chrome/120.0 Safari/537.36");
+        conn.setConnectTimeout((int) properties.getConnectTimeout().toMillis());
+        conn.setReadTimeout((int) properties.getReadTimeout().toMillis());
+
+        try (InputStream in = conn.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
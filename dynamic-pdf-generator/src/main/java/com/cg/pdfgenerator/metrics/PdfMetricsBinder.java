@@ -0,0 +1,94 @@
+package com.cg.pdfgenerator.metrics;
+
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.image.ImageCacheStats;
+import com.cg.pdfgenerator.output.OutputCache;
+import com.cg.pdfgenerator.output.OutputCacheStats;
+import com.cg.pdfgenerator.service.RenderLimiter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the caches and the render limiter already keep, read when
+ * the registry is scraped rather than updated on every lookup.
+ */
+@Component
+@RequiredArgsConstructor
+public class PdfMetricsBinder implements MeterBinder {
+
+    private final ImageCache imageCache;
+    private final FontRegistry fontRegistry;
+    private final RenderLimiter renderLimiter;
+    private final OutputCache outputCache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        imageCounter(registry, "pdf.images.cache.requests", "hit", ImageCacheStats::hits);
+        imageCounter(registry, "pdf.images.cache.requests", "miss", ImageCacheStats::misses);
+        FunctionCounter.builder("pdf.images.cache.evictions", imageCache, cache -> cache.getStats().evictions())
+                .register(registry);
+        FunctionCounter.builder("pdf.images.load.failures", imageCache, cache -> cache.getStats().loadFailures())
+                .register(registry);
+        FunctionTimer.builder("pdf.images.load", imageCache,
+                        cache -> cache.getStats().loads(), cache -> cache.getStats().loadNanos(), TimeUnit.NANOSECONDS)
+                .description("Fetching and decoding images missing from the cache")
+                .register(registry);
+        Gauge.builder("pdf.images.cache.size", imageCache, cache -> cache.getStats().bytes())
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("pdf.images.cache.entries", imageCache, cache -> cache.getStats().entries())
+                .register(registry);
+
+        FunctionCounter.builder("pdf.fonts.cache.requests", fontRegistry, FontRegistry::getHits)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("pdf.fonts.cache.requests", fontRegistry, FontRegistry::getMisses)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("pdf.fonts.cache.entries", fontRegistry, FontRegistry::size)
+                .register(registry);
+
+        outputCounter(registry, "pdf.output.cache.requests", "hit", OutputCacheStats::hits);
+        outputCounter(registry, "pdf.output.cache.requests", "miss", OutputCacheStats::misses);
+        FunctionCounter.builder("pdf.output.cache.evictions", outputCache, cache -> cache.getStats().evictions())
+                .register(registry);
+        Gauge.builder("pdf.output.cache.size", outputCache, cache -> cache.getStats().memoryBytes())
+                .tag("tier", "memory")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("pdf.output.cache.size", outputCache, cache -> cache.getStats().diskBytes())
+                .tag("tier", "disk")
+                .baseUnit("bytes")
+                .register(registry);
+
+        Gauge.builder("pdf.render.active", renderLimiter, RenderLimiter::getActive)
+                .description("Documents being laid out")
+                .register(registry);
+        Gauge.builder("pdf.render.queued", renderLimiter, RenderLimiter::getQueued)
+                .description("Requests waiting for a render slot")
+                .register(registry);
+    }
+
+    private void imageCounter(MeterRegistry registry, String name, String result,
+                              ToDoubleFunction<ImageCacheStats> value) {
+        FunctionCounter.builder(name, imageCache, cache -> value.applyAsDouble(cache.getStats()))
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void outputCounter(MeterRegistry registry, String name, String result,
+                               ToDoubleFunction<OutputCacheStats> value) {
+        FunctionCounter.builder(name, outputCache, cache -> value.applyAsDouble(cache.getStats()))
+                .tag("result", result)
+                .register(registry);
+    }
+}
@@ -0,0 +1,91 @@
+package com.cg.pdfgenerator.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the render pipeline, tagged by template so cost can be attributed:
+ * <ul>
+ *   <li>{@code pdf.render} - whole document, and {@code pdf.render.stage} per stage
+ *       ({@code lookup}, {@code prefetch}, {@code layout}, {@code close})</li>
+ *   <li>{@code pdf.render.element} - per element type, e.g. {@code TABLE}, with static
+ *       fragments copied into the document as {@code FRAGMENT}</li>
+ *   <li>{@code pdf.render.output.bytes} and {@code pdf.render.pages} per document</li>
+ *   <li>{@code pdf.render.failures}</li>
+ * </ul>
+ * Timers and summaries publish histogram buckets, so percentiles can be aggregated
+ * across instances in Prometheus.
+ */
+@Component
+public class RenderMetrics {
+
+    public static final String STAGE_LOOKUP = "lookup";
+    public static final String STAGE_PREFETCH = "prefetch";
+    public static final String STAGE_LAYOUT = "layout";
+    public static final String STAGE_CLOSE = "close";
+    public static final String ELEMENT_FRAGMENT = "FRAGMENT";
+
+    private final MeterRegistry registry;
+    // Looked up once per element, so resolved meters are kept instead of going through the registry
+    private final Map<String, Timer> elementTimers = new ConcurrentHashMap<>();
+
+    public RenderMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public void recordStage(String templateId, String stage, long nanos) {
+        Timer.builder("pdf.render.stage")
+                .description("Time spent per stage of rendering a document")
+                .tag("template", templateId)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordElement(String type, long nanos) {
+        elementTimers.computeIfAbsent(type, key -> Timer.builder("pdf.render.element")
+                        .description("Time spent processing one element, including its layout")
+                        .tag("type", key)
+                        .publishPercentileHistogram()
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordDocument(String templateId, long nanos, long bytes, int pages) {
+        Timer.builder("pdf.render")
+                .description("Time to render a complete document")
+                .tag("template", templateId)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("pdf.render.output.bytes")
+                .description("Size of rendered documents")
+                .baseUnit("bytes")
+                .tag("template", templateId)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(bytes);
+        DistributionSummary.builder("pdf.render.pages")
+                .description("Pages of rendered documents")
+                .tag("template", templateId)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(pages);
+    }
+
+    public void recordFailure(String templateId) {
+        Counter.builder("pdf.render.failures")
+                .description("Documents that failed to render")
+                .tag("template", templateId)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,17 @@
+package com.cg.pdfgenerator.model;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchGenerationRequest {
+    private String templateId;
+    private List<Map<String, Object>> records;
+    private String fileNamePattern; // e.g. "invoice-{{invoiceNumber}}.pdf", {{index}} is always available
+    private String outputDirectory; // relative to pdf.batch.output-dir; null streams a ZIP instead
+}
@@ -0,0 +1,20 @@
+package com.cg.pdfgenerator.model;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResult {
+    private String templateId;
+    private String outputDirectory;
+    private int total;
+    private int succeeded;
+    private int failed;
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+}
@@ -0,0 +1,29 @@
+package com.cg.pdfgenerator.model;
+
+import lombok.*;
+
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class JobStatus {
+    private String jobId;
+    private String templateId;
+    private String outputFileName;
+    private State state;
+    private int elementsProcessed;
+    private int totalElements;
+    private int pagesWritten;
+    private Long resultSize; // bytes, once completed
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant completedAt;
+    private Instant expiresAt;
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+}
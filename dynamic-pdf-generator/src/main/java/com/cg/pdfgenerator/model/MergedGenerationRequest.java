@@ -0,0 +1,18 @@
+package com.cg.pdfgenerator.model;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MergedGenerationRequest {
+    private String templateId;
+    private List<Map<String, Object>> records;
+    private String bookmarkTitle; // e.g. "Invoice {{invoiceNumber}}", null for no outline
+    private String outputFileName;
+    private String outputProfile; // FAST, BALANCED, SMALLEST; null for the template's
+}
@@ -13,5 +13,6 @@ public class PdfGenerationRequest {
     private String templateId;
     private Map<String, Object> data;
     private String outputFileName;
+    private String outputProfile; // FAST, BALANCED, SMALLEST; null for the template's
 }
 
@@ -17,6 +17,7 @@ public class PdfTemplate {
     private String templateId;
     private String templateName;
     private PageSettings pageSettings;
+    private String outputProfile; // FAST, BALANCED, SMALLEST; null for pdf.output.profile
     private List<Element> elements;
     
     @Data
@@ -0,0 +1,319 @@
+package com.cg.pdfgenerator.output;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generated documents, keyed by the template version, output profile and data they were
+ * rendered from, so a repeated request is answered without laying it out again. Documents are
+ * kept in memory up to {@code pdf.output.cache-max-memory}; the least recently used
+ * ones spill to {@code pdf.output.cache-dir}, which is bounded the same way.
+ *
+ * <p>The key doubles as the document ID of deterministic output and as the ETag of
+ * the response. Documents expire after {@code pdf.output.cache-ttl}, which is also
+ * how long remote images they show may be out of date.
+ */
+@Component
+@Slf4j
+public class OutputCache {
+
+    private static final String SUFFIX = ".pdf";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final ObjectMapper canonicalMapper;
+    private final boolean enabled;
+    private final boolean deterministic;
+    private final long maxMemoryBytes;
+    private final Path dir;
+    private final long maxDiskBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<String, Entry> disk = new LinkedHashMap<>(64, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public OutputCache(ObjectMapper objectMapper, PdfProperties properties) throws IOException {
+        PdfProperties.Output config = properties.getOutput();
+        // Maps are written with sorted keys, so the same data always hashes the same
+        this.canonicalMapper = objectMapper.copy().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        this.enabled = config.isCacheEnabled();
+        this.deterministic = config.isDeterministic() || enabled;
+        this.maxMemoryBytes = config.getCacheMaxMemory().toBytes();
+        this.dir = config.getCacheDir() != null ? config.getCacheDir().toAbsolutePath().normalize() : null;
+        this.maxDiskBytes = config.getCacheMaxDisk().toBytes();
+        this.ttlMillis = config.getCacheTtl().toMillis();
+        if (enabled && dir != null) {
+            Files.createDirectories(dir);
+            clear(); // the index of a previous run is gone with it
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether documents are written with a fixed ID and without dates, so that rendering
+     * the same template version with the same data gives the same bytes.
+     */
+    public boolean isDeterministic() {
+        return deterministic;
+    }
+
+    /**
+     * SHA-256 of the template id and version, the output profile and the data in canonical
+     * JSON, hex encoded.
+     */
+    public String keyOf(CompiledTemplate template, OutputProfile profile, Map<String, Object> data) {
+        MessageDigest digest = sha256();
+        digest.update((template.getTemplateId() + '\n' + template.getVersion() + '\n' + profile + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            canonicalMapper.writeValue(out, data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not hash data of template " + template.getTemplateId(), e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The cached document, or null if it is not cached, has expired or the cache is off.
+     */
+    public byte[] get(String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        boolean deleteLater = false;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (!isExpired(entry, now)) {
+                    hits.incrementAndGet();
+                    return entry.content();
+                }
+                memory.remove(key);
+                memoryBytes -= entry.bytes();
+            }
+            Entry spilled = disk.get(key);
+            if (spilled == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (isExpired(spilled, now)) {
+                disk.remove(key);
+                diskBytes -= spilled.bytes();
+                misses.incrementAndGet();
+                deleteLater = true;
+            }
+        }
+        if (deleteLater) {
+            deleteQuietly(key);
+            return null;
+        }
+        return read(key);
+    }
+
+    /**
+     * Caches the document. Documents larger than the memory bound go to disk directly.
+     */
+    public void put(String key, byte[] content) {
+        if (!enabled || key == null) {
+            return;
+        }
+        Map<String, Entry> spills = new LinkedHashMap<>();
+        Entry entry = new Entry(content, content.length, System.currentTimeMillis());
+        synchronized (this) {
+            if (content.length > maxMemoryBytes) {
+                spills.put(key, entry);
+            } else {
+                Entry previous = memory.put(key, entry);
+                if (previous != null) {
+                    memoryBytes -= previous.bytes();
+                }
+                memoryBytes += entry.bytes();
+
+                Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+                while (memoryBytes > maxMemoryBytes && eldest.hasNext()) {
+                    Map.Entry<String, Entry> evicted = eldest.next();
+                    eldest.remove();
+                    memoryBytes -= evicted.getValue().bytes();
+                    spills.put(evicted.getKey(), evicted.getValue());
+                }
+            }
+        }
+        // Files are written outside the lock so lookups never wait for the disk
+        spills.forEach(this::spill);
+    }
+
+    public OutputCacheStats getStats() {
+        synchronized (this) {
+            return new OutputCacheStats(hits.get(), misses.get(), evictions.get(),
+                    memory.size(), memoryBytes, disk.size(), diskBytes);
+        }
+    }
+
+    /**
+     * Drops expired documents, so they do not hold memory or disk space until they are asked for.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void removeExpired() {
+        if (!enabled) {
+            return;
+        }
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            Iterator<Entry> inMemory = memory.values().iterator();
+            while (inMemory.hasNext()) {
+                Entry entry = inMemory.next();
+                if (isExpired(entry, now)) {
+                    inMemory.remove();
+                    memoryBytes -= entry.bytes();
+                }
+            }
+            Iterator<Map.Entry<String, Entry>> onDisk = disk.entrySet().iterator();
+            while (onDisk.hasNext()) {
+                Map.Entry<String, Entry> entry = onDisk.next();
+                if (isExpired(entry.getValue(), now)) {
+                    onDisk.remove();
+                    diskBytes -= entry.getValue().bytes();
+                    expired.add(entry.getKey());
+                }
+            }
+        }
+        expired.forEach(this::deleteQuietly);
+    }
+
+    private void spill(String key, Entry entry) {
+        if (dir == null || entry.bytes() > maxDiskBytes) {
+            evictions.incrementAndGet();
+            return;
+        }
+        Path partial = null;
+        try {
+            partial = Files.createTempFile(dir, key, PARTIAL_SUFFIX);
+            Files.write(partial, entry.content());
+            Files.move(partial, fileOf(key), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Could not spill cached document {} to {}: {}", key, dir, e.getMessage());
+            if (partial != null) {
+                deleteQuietly(partial);
+            }
+            evictions.incrementAndGet();
+            return;
+        }
+
+        List<String> dropped = new ArrayList<>();
+        synchronized (this) {
+            Entry previous = disk.put(key, new Entry(null, entry.bytes(), entry.createdAt()));
+            if (previous != null) {
+                diskBytes -= previous.bytes();
+            }
+            diskBytes += entry.bytes();
+
+            Iterator<Map.Entry<String, Entry>> eldest = disk.entrySet().iterator();
+            while (diskBytes > maxDiskBytes && eldest.hasNext()) {
+                Map.Entry<String, Entry> evicted = eldest.next();
+                eldest.remove();
+                diskBytes -= evicted.getValue().bytes();
+                dropped.add(evicted.getKey());
+                evictions.incrementAndGet();
+            }
+        }
+        dropped.forEach(this::deleteQuietly);
+    }
+
+    /**
+     * Reads a spilled document. A file that has gone missing counts as a miss.
+     */
+    private byte[] read(String key) {
+        try {
+            byte[] content = Files.readAllBytes(fileOf(key));
+            hits.incrementAndGet();
+            return content;
+        } catch (IOException e) {
+            log.warn("Could not read cached document {}: {}", key, e.getMessage());
+            synchronized (this) {
+                Entry entry = disk.remove(key);
+                if (entry != null) {
+                    diskBytes -= entry.bytes();
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private void clear() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*{" + SUFFIX + "," + PARTIAL_SUFFIX + "}")) {
+            for (Path file : files) {
+                deleteQuietly(file);
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt() > ttlMillis;
+    }
+
+    private Path fileOf(String key) {
+        return dir.resolve(key + SUFFIX);
+    }
+
+    private void deleteQuietly(String key) {
+        deleteQuietly(fileOf(key));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached document; the content is null for documents that live on disk.
+     */
+    private record Entry(byte[] content, long bytes, long createdAt) {
+    }
+}
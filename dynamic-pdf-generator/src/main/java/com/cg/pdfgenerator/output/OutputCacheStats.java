@@ -0,0 +1,9 @@
+package com.cg.pdfgenerator.output;
+
+/**
+ * Point-in-time counters of the {@link OutputCache}. Evictions count documents dropped
+ * altogether, not those moved from memory to disk.
+ */
+public record OutputCacheStats(long hits, long misses, long evictions,
+                               int memoryEntries, long memoryBytes, int diskEntries, long diskBytes) {
+}
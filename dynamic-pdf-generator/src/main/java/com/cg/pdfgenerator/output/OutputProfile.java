@@ -0,0 +1,77 @@
+package com.cg.pdfgenerator.output;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.WriterProperties;
+
+import java.util.Locale;
+
+/**
+ * How much CPU the writer spends on making documents small. Chosen per request or per
+ * template, falling back to {@code pdf.output.profile}.
+ *
+ * <p>The compression level applies to content streams, embedded fonts and images iText has
+ * to re-encode; JPEG and most PNG images keep the compression they came with. Full
+ * compression also packs objects into object streams indexed by a cross-reference stream.
+ * Smart mode writes resources copied in from other documents, such as static fragments,
+ * once if they are equal.
+ */
+public enum OutputProfile {
+
+    /** Cheapest to write, for previews and other latency-sensitive requests. */
+    FAST(CompressionConstants.BEST_SPEED, false, false),
+    /** iText's defaults. */
+    BALANCED(CompressionConstants.DEFAULT_COMPRESSION, false, false),
+    /**
+     * Smallest documents, for archiving. Content-heavy documents come out about a tenth
+     * smaller than with BALANCED in about the same time, see {@code src/jmh/README.md}.
+     */
+    SMALLEST(CompressionConstants.BEST_COMPRESSION, true, true);
+
+    private final int compressionLevel;
+    private final boolean fullCompression;
+    private final boolean smartMode;
+
+    OutputProfile(int compressionLevel, boolean fullCompression, boolean smartMode) {
+        this.compressionLevel = compressionLevel;
+        this.fullCompression = fullCompression;
+        this.smartMode = smartMode;
+    }
+
+    public WriterProperties writerProperties() {
+        WriterProperties properties = new WriterProperties()
+                .setCompressionLevel(compressionLevel)
+                .setFullCompressionMode(fullCompression);
+        if (smartMode) {
+            properties.useSmartMode();
+        }
+        return properties;
+    }
+
+    /**
+     * Whether {@link #of} accepts the name.
+     */
+    public static boolean isValid(String name) {
+        try {
+            of(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The profile of the given name, in any case, or {@code null} for no name.
+     *
+     * @throws IllegalArgumentException if there is no such profile
+     */
+    public static OutputProfile of(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown output profile: " + name);
+        }
+    }
+}
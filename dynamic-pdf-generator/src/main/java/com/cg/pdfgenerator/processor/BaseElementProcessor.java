@@ -2,155 +2,114 @@
 // File: processor/BaseElementProcessor.java
 package com.cg.pdfgenerator.processor;
 
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.CompiledStyle;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.engine.RenderContext;
 import com.cg.pdfgenerator.model.PdfTemplate;
-import com.itextpdf.io.font.constants.StandardFonts;
-import com.itextpdf.kernel.colors.Color;
-import com.itextpdf.kernel.colors.DeviceRgb;
-import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
-import com.itextpdf.layout.borders.SolidBorder;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
-import com.itextpdf.layout.element.Text;
-import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.VerticalAlignment;
 
 import java.util.Map;
 
 public abstract class BaseElementProcessor implements ElementProcessor {
     
-    protected String resolveContent(Object content, Map<String, Object> data) {
-        if (content == null) {
-            return "";
-        }
-        
-        String contentStr = content.toString();
-        
-        for (Map.Entry<String, Object> entry : data.entrySet()) {
-            String placeholder = "{{" + entry.getKey() + "}}";
-            if (contentStr.contains(placeholder)) {
-                contentStr = contentStr.replace(placeholder, 
-                    entry.getValue() != null ? entry.getValue().toString() : "");
-            }
-        }
-        
-        return contentStr;
+    /**
+     * Pre-parses the content into a {@link PlaceholderTemplate} once per template version.
+     */
+    @Override
+    public Object compileContent(PdfTemplate.Element element) {
+        return element.getContent() != null ? PlaceholderTemplate.parse(element.getContent().toString()) : null;
     }
     
-    protected void applyStyle(Paragraph paragraph, PdfTemplate.Style style, String content) throws Exception {
-        if (style == null) {
-            return;
-        }
-        
-        PdfFont font = getStyledFont(style);
-        if (font != null) {
-            paragraph.setFont(font);
+    /**
+     * Repeatable elements are drawn on every page, see {@link #decoratePages}.
+     */
+    @Override
+    public String staticText(CompiledElement element) {
+        if (isRepeatable(element)) {
+            return null;
         }
-        
-        if (style.getFontSize() != null) {
-            paragraph.setFontSize(style.getFontSize());
+        if (element.getContent() instanceof PlaceholderTemplate template && !template.hasPlaceholders()) {
+            return template.render(Map.of());
         }
-        
-        if (style.getFontColor() != null) {
-            Color color = parseColor(style.getFontColor());
-            if (color != null) {
-                paragraph.setFontColor(color);
-            }
-        }
-        
-        if (style.getBackgroundColor() != null) {
-            Color bgColor = parseColor(style.getBackgroundColor());
-            if (bgColor != null) {
-                paragraph.setBackgroundColor(bgColor);
-            }
+        return null;
+    }
+    
+    /**
+     * Whether the element has the {@code repeatable} property, which headers and footers
+     * use to show on every page instead of once in the flow.
+     */
+    protected static boolean isRepeatable(CompiledElement element) {
+        return Boolean.TRUE.equals(element.getProperty("repeatable"));
+    }
+    
+    /**
+     * The content with its placeholders resolved, see {@link ElementProcessor#prepare}.
+     */
+    @Override
+    public Object prepare(CompiledElement element, Map<String, Object> data) throws Exception {
+        return resolveContent(element.getContent(), data);
+    }
+    
+    /**
+     * Prepares the element on the calling thread and lays it out, for callers that do not
+     * prepare elements ahead.
+     */
+    @Override
+    public void process(RenderContext context, CompiledElement element) throws Exception {
+        process(context, element, prepare(element, context.getData()));
+    }
+    
+    @Override
+    public abstract void process(RenderContext context, CompiledElement element, Object prepared) throws Exception;
+    
+    protected String resolveContent(Object content, Map<String, Object> data) {
+        if (content == null) {
+            return "";
         }
         
-        if (style.getUnderline() != null && style.getUnderline()) {
-            paragraph.setUnderline();
+        if (content instanceof PlaceholderTemplate template) {
+            return template.render(data);
         }
         
-        if (style.getBorderWidth() != null && style.getBorderWidth() > 0) {
-            Color borderColor = style.getBorderColor() != null 
-                ? parseColor(style.getBorderColor()) 
-                : new DeviceRgb(0, 0, 0);
-            paragraph.setBorder(new SolidBorder(borderColor, style.getBorderWidth()));
+        String contentStr = content.toString();
+        if (!contentStr.contains("{{")) {
+            return contentStr;
         }
         
-        if (style.getPadding() != null) {
-            paragraph.setPadding(style.getPadding());
-        }
+        return PlaceholderTemplate.parse(contentStr).render(data);
     }
     
-    protected void applyCellStyle(Cell cell, PdfTemplate.Style style) throws Exception {
+    protected void applyStyle(RenderContext context, Paragraph paragraph, CompiledStyle style) {
         if (style == null) {
             return;
         }
         
-        PdfFont font = getStyledFont(style);
-        if (font != null) {
-            cell.setFont(font);
-        }
-        
-        if (style.getFontSize() != null) {
-            cell.setFontSize(style.getFontSize());
-        }
-        
-        if (style.getFontColor() != null) {
-            Color color = parseColor(style.getFontColor());
-            if (color != null) {
-                cell.setFontColor(color);
-            }
-        }
-        
-        if (style.getBackgroundColor() != null) {
-            Color bgColor = parseColor(style.getBackgroundColor());
-            if (bgColor != null) {
-                cell.setBackgroundColor(bgColor);
-            }
-        }
-        
-        if (style.getBorderWidth() != null && style.getBorderWidth() > 0) {
-            Color borderColor = style.getBorderColor() != null 
-                ? parseColor(style.getBorderColor()) 
-                : new DeviceRgb(0, 0, 0);
-            cell.setBorder(new SolidBorder(borderColor, style.getBorderWidth()));
-        }
-        
-        if (style.getPadding() != null) {
-            cell.setPadding(style.getPadding());
-        }
+        paragraph.addStyle(context.getStyles().forParagraph(style));
     }
     
-    protected PdfFont getStyledFont(PdfTemplate.Style style) throws Exception {
+    protected void applyCellStyle(RenderContext context, Cell cell, CompiledStyle style) throws Exception {
         if (style == null) {
-            return null;
-        }
-        
-        boolean bold = style.getBold() != null && style.getBold();
-        boolean italic = style.getItalic() != null && style.getItalic();
-        
-        if (bold && italic) {
-            return PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLDOBLIQUE);
-        } else if (bold) {
-            return PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD);
-        } else if (italic) {
-            return PdfFontFactory.createFont(StandardFonts.HELVETICA_OBLIQUE);
+            return;
         }
         
-        return null;
+        cell.addStyle(context.getStyles().forCell(style));
     }
     
-    protected TextAlignment getTextAlignment(String alignment) {
-        if (alignment == null) {
-            return TextAlignment.LEFT;
+    /**
+     * Applies the compiled position and style shared by all paragraph-like elements.
+     */
+    protected void applyLayout(RenderContext context, Paragraph paragraph, CompiledElement element) {
+        if (element.getTextAlignment() != null) {
+            paragraph.setTextAlignment(element.getTextAlignment());
+        }
+        if (element.getWidth() != null) {
+            paragraph.setWidth(element.getWidth());
         }
         
-        return switch (alignment.toUpperCase()) {
-            case "CENTER" -> TextAlignment.CENTER;
-            case "RIGHT" -> TextAlignment.RIGHT;
-            case "JUSTIFY" -> TextAlignment.JUSTIFIED;
-            default -> TextAlignment.LEFT;
-        };
+        applyStyle(context, paragraph, element.getStyle());
     }
     
     protected VerticalAlignment getVerticalAlignment(String alignment) {
@@ -164,24 +123,4 @@ public abstract class BaseElementProcessor implements ElementProcessor {
             default -> VerticalAlignment.TOP;
         };
     }
-    
-    protected Color parseColor(String colorStr) {
-        if (colorStr == null || colorStr.isEmpty()) {
-            return null;
-        }
-        
-        try {
-            if (colorStr.startsWith("#")) {
-                colorStr = colorStr.substring(1);
-            }
-            
-            int r = Integer.parseInt(colorStr.substring(0, 2), 16);
-            int g = Integer.parseInt(colorStr.substring(2, 4), 16);
-            int b = Integer.parseInt(colorStr.substring(4, 6), 16);
-            
-            return new DeviceRgb(r, g, b);
-        } catch (Exception e) {
-            return null;
-        }
-    }
 }
\ No newline at end of file
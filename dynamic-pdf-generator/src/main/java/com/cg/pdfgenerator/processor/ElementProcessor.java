@@ -2,10 +2,79 @@
 // File: processor/ElementProcessor.java
 package com.cg.pdfgenerator.processor;
 
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.RenderContext;
 import com.cg.pdfgenerator.model.PdfTemplate;
-import com.itextpdf.layout.Document;
+
 import java.util.Map;
 
 public interface ElementProcessor {
-    void process(Document document, PdfTemplate.Element element, Map<String, Object> data) throws Exception;
+
+    /**
+     * Converts the raw element content into the form {@link #process} expects.
+     * Called once when the template is compiled, never per request.
+     */
+    default Object compileContent(PdfTemplate.Element element) {
+        return element.getContent();
+    }
+
+    /**
+     * Starts loading external resources the element will need for this data, before
+     * layout begins. Must not block; the default does nothing.
+     */
+    default void prefetch(CompiledElement element, Map<String, Object> data) {
+    }
+
+    /**
+     * Waits for what {@link #prefetch} started for this data, so layout does not block on
+     * it. Failures are left for {@link #process} to report; the default does nothing.
+     */
+    default void awaitPrefetch(CompiledElement element, Map<String, Object> data) {
+    }
+
+    /**
+     * The text the element shows whatever the data, or {@code null} if its output depends
+     * on the data. Runs of elements with static text are laid out once per template
+     * version, see {@link com.cg.pdfgenerator.engine.StaticFragment}.
+     */
+    default String staticText(CompiledElement element) {
+        return null;
+    }
+
+    /**
+     * Registers what the element repeats on every page with the document's
+     * {@link com.cg.pdfgenerator.engine.PageDecorations}. Called for all elements before
+     * layout starts, so the first page already shows them; the default does nothing.
+     */
+    default void decoratePages(RenderContext context, CompiledElement element) throws Exception {
+    }
+
+    /**
+     * Whether the element only shows through {@link #decoratePages}, so {@link #process}
+     * lays out nothing and preparing it ahead would be wasted. The default is false.
+     */
+    default boolean decoratesOnly(CompiledElement element) {
+        return false;
+    }
+
+    /**
+     * Does the part of {@link #process} that depends on the data but not on the document:
+     * resolving placeholders, formatting values, reading table rows. Called for the
+     * elements of a document in parallel, ahead of layout, so it must only read the data;
+     * the result is handed to {@link #process(RenderContext, CompiledElement, Object)}.
+     * The default prepares nothing.
+     */
+    default Object prepare(CompiledElement element, Map<String, Object> data) throws Exception {
+        return null;
+    }
+
+    void process(RenderContext context, CompiledElement element) throws Exception;
+
+    /**
+     * Lays out the element from what {@link #prepare} returned for it. The default
+     * ignores it.
+     */
+    default void process(RenderContext context, CompiledElement element, Object prepared) throws Exception {
+        process(context, element);
+    }
 }
@@ -1,36 +1,55 @@
-
 // File: processor/FooterElementProcessor.java
 package com.cg.pdfgenerator.processor;
 
-import com.cg.pdfgenerator.model.PdfTemplate;
-import com.itextpdf.layout.Document;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.RenderContext;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.layout.element.Paragraph;
 
-import java.util.Map;
-
 public class FooterElementProcessor extends BaseElementProcessor {
     
+    /**
+     * A repeatable footer goes at the bottom of every page, where {@code {{pageNumber}}} and
+     * {@code {{totalPages}}} are filled in.
+     */
     @Override
-    public void process(Document document, PdfTemplate.Element element, Map<String, Object> data) throws Exception {
-        String content = resolveContent(element.getContent(), data);
-        
-        Paragraph footer = new Paragraph(content);
-        
-        float fontSize = element.getStyle() != null && element.getStyle().getFontSize() != null 
-            ? element.getStyle().getFontSize() : 10f;
-        footer.setFontSize(fontSize);
+    public void decoratePages(RenderContext context, CompiledElement element) throws Exception {
+        if (!isRepeatable(element)) {
+            return;
+        }
+        String content = resolveContent(element.getContent(), context.getData());
+        String font = element.getStyle() != null && element.getStyle().getFont() != null
+            ? element.getStyle().getFont() : StandardFonts.HELVETICA;
         
-        if (element.getPosition() != null) {
-            if (element.getPosition().getAlignment() != null) {
-                footer.setTextAlignment(getTextAlignment(element.getPosition().getAlignment()));
-            }
-            if (element.getPosition().getWidth() != null) {
-                footer.setWidth(element.getPosition().getWidth());
-            }
+        context.getDecorations().addFooter(element, content, footer -> style(context, footer, element),
+            context.getFonts().get(font), fontSize(element),
+            element.getStyle() != null ? element.getStyle().getFontColor() : null);
+    }
+    
+    @Override
+    public boolean decoratesOnly(CompiledElement element) {
+        return isRepeatable(element);
+    }
+    
+    @Override
+    public void process(RenderContext context, CompiledElement element, Object prepared) throws Exception {
+        if (isRepeatable(element)) {
+            return;
         }
+        String content = (String) prepared;
         
-        applyStyle(footer, element.getStyle(), content);
+        context.getDocument().add(style(context, new Paragraph(content), element));
+    }
+    
+    private Paragraph style(RenderContext context, Paragraph footer, CompiledElement element) {
+        footer.setFontSize(fontSize(element));
         
-        document.add(footer);
+        applyLayout(context, footer, element);
+        return footer;
+    }
+    
+    private float fontSize(CompiledElement element) {
+        return element.getStyle() != null && element.getStyle().getFontSize() != null 
+            ? element.getStyle().getFontSize() : 10f;
     }
 }
@@ -1,39 +1,56 @@
-
 // File: processor/HeaderElementProcessor.java
 package com.cg.pdfgenerator.processor;
 
-import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.RenderContext;
 import com.itextpdf.io.font.constants.StandardFonts;
-import com.itextpdf.kernel.font.PdfFontFactory;
-import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 
-import java.util.Map;
-
 public class HeaderElementProcessor extends BaseElementProcessor {
     
+    /**
+     * A repeatable header goes at the top of every page, where {@code {{pageNumber}}} and
+     * {@code {{totalPages}}} are filled in.
+     */
     @Override
-    public void process(Document document, PdfTemplate.Element element, Map<String, Object> data) throws Exception {
-        String content = resolveContent(element.getContent(), data);
-        
-        Paragraph header = new Paragraph(content);
-        header.setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA_BOLD));
-        
-        float fontSize = element.getStyle() != null && element.getStyle().getFontSize() != null 
-            ? element.getStyle().getFontSize() : 18f;
-        header.setFontSize(fontSize);
+    public void decoratePages(RenderContext context, CompiledElement element) throws Exception {
+        if (!isRepeatable(element)) {
+            return;
+        }
+        String content = resolveContent(element.getContent(), context.getData());
+        String font = element.getStyle() != null && element.getStyle().getFont() != null
+            ? element.getStyle().getFont() : StandardFonts.HELVETICA_BOLD;
         
-        if (element.getPosition() != null) {
-            if (element.getPosition().getAlignment() != null) {
-                header.setTextAlignment(getTextAlignment(element.getPosition().getAlignment()));
-            }
-            if (element.getPosition().getWidth() != null) {
-                header.setWidth(element.getPosition().getWidth());
-            }
+        context.getDecorations().addHeader(element, content, header -> style(context, header, element),
+            context.getFonts().get(font), fontSize(element),
+            element.getStyle() != null ? element.getStyle().getFontColor() : null);
+    }
+    
+    @Override
+    public boolean decoratesOnly(CompiledElement element) {
+        return isRepeatable(element);
+    }
+    
+    @Override
+    public void process(RenderContext context, CompiledElement element, Object prepared) throws Exception {
+        if (isRepeatable(element)) {
+            return;
         }
+        String content = (String) prepared;
         
-        applyStyle(header, element.getStyle(), content);
+        context.getDocument().add(style(context, new Paragraph(content), element));
+    }
+    
+    private Paragraph style(RenderContext context, Paragraph header, CompiledElement element) {
+        header.setFontFamily(context.getFonts().families(StandardFonts.HELVETICA_BOLD));
+        header.setFontSize(fontSize(element));
         
-        document.add(header);
+        applyLayout(context, header, element);
+        return header;
+    }
+    
+    private float fontSize(CompiledElement element) {
+        return element.getStyle() != null && element.getStyle().getFontSize() != null 
+            ? element.getStyle().getFontSize() : 18f;
     }
 }
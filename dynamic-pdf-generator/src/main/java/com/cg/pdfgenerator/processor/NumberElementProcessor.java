@@ -1,7 +1,9 @@
 package com.cg.pdfgenerator.processor;
 
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.engine.RenderContext;
 import com.cg.pdfgenerator.model.PdfTemplate;
-import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 
 import java.text.DecimalFormat;
@@ -9,47 +11,86 @@ import java.util.Map;
 
 public class NumberElementProcessor extends BaseElementProcessor {
     
+    /**
+     * Also compiles the {@code format} property into a {@link DecimalFormat} once per
+     * template version. A pattern that does not compile leaves values unformatted.
+     */
     @Override
-    public void process(Document document, PdfTemplate.Element element, Map<String, Object> data) throws Exception {
-        String content = resolveContent(element.getContent(), data);
-        
-        String formattedContent = content;
-        if (element.getProperties() != null && element.getProperties().containsKey("format")) {
+    public Object compileContent(PdfTemplate.Element element) {
+        PlaceholderTemplate content = (PlaceholderTemplate) super.compileContent(element);
+        Object pattern = element.getProperties() != null ? element.getProperties().get("format") : null;
+        DecimalFormat format = null;
+        if (pattern != null) {
             try {
-                String format = element.getProperties().get("format").toString();
-                double number = Double.parseDouble(content);
-                DecimalFormat df = new DecimalFormat(format);
-                formattedContent = df.format(number);
-            } catch (Exception e) {
+                format = new DecimalFormat(pattern.toString());
+            } catch (IllegalArgumentException e) {
                 // Use original if formatting fails
             }
         }
+        return new CompiledNumber(content, format);
+    }
+    
+    @Override
+    public String staticText(CompiledElement element) {
+        CompiledNumber number = (CompiledNumber) element.getContent();
+        if (isRepeatable(element) || number.content() == null || number.content().hasPlaceholders()) {
+            return null;
+        }
+        return format(element, number, Map.of());
+    }
+    
+    /**
+     * The content resolved and formatted, with its prefix and suffix.
+     */
+    @Override
+    public Object prepare(CompiledElement element, Map<String, Object> data) throws Exception {
+        return format(element, (CompiledNumber) element.getContent(), data);
+    }
+    
+    @Override
+    public void process(RenderContext context, CompiledElement element, Object prepared) throws Exception {
+        Paragraph paragraph = new Paragraph((String) prepared);
         
-        if (element.getProperties() != null) {
-            String prefix = (String) element.getProperties().get("prefix");
-            String suffix = (String) element.getProperties().get("suffix");
-            
-            if (prefix != null) {
-                formattedContent = prefix + formattedContent;
-            }
-            if (suffix != null) {
-                formattedContent = formattedContent + suffix;
+        applyLayout(context, paragraph, element);
+        
+        context.getDocument().add(paragraph);
+    }
+    
+    private String format(CompiledElement element, CompiledNumber number, Map<String, Object> data) {
+        String content = resolveContent(number.content(), data);
+        
+        String formattedContent = content;
+        if (number.format() != null) {
+            try {
+                formattedContent = number.format(Double.parseDouble(content));
+            } catch (NumberFormatException e) {
+                // Use original if formatting fails
             }
         }
         
-        Paragraph paragraph = new Paragraph(formattedContent);
+        String prefix = (String) element.getProperties().get("prefix");
+        String suffix = (String) element.getProperties().get("suffix");
         
-        if (element.getPosition() != null) {
-            if (element.getPosition().getAlignment() != null) {
-                paragraph.setTextAlignment(getTextAlignment(element.getPosition().getAlignment()));
-            }
-            if (element.getPosition().getWidth() != null) {
-                paragraph.setWidth(element.getPosition().getWidth());
-            }
+        if (prefix != null) {
+            formattedContent = prefix + formattedContent;
+        }
+        if (suffix != null) {
+            formattedContent = formattedContent + suffix;
         }
         
-        applyStyle(paragraph, element.getStyle(), formattedContent);
+        return formattedContent;
+    }
+    
+    /**
+     * The content of a number element: its placeholders, and the format the resolved
+     * value is written with, if any.
+     */
+    private record CompiledNumber(PlaceholderTemplate content, DecimalFormat format) {
         
-        document.add(paragraph);
+        // DecimalFormat is not thread-safe and elements are prepared in parallel; a copy
+        // of the compiled format is still much cheaper than parsing the pattern again
+        String format(double value) {
+            return ((DecimalFormat) format.clone()).format(value);
+        }
     }
 }
\ No newline at end of file
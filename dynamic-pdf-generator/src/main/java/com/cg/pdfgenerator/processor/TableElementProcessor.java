@@ -1,14 +1,22 @@
 package com.cg.pdfgenerator.processor;
 
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.CompiledStyle;
+import com.cg.pdfgenerator.engine.CompiledTable;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.engine.RenderContext;
 import com.cg.pdfgenerator.model.PdfTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.UnitValue;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -16,34 +24,107 @@ import java.util.Map;
 public class TableElementProcessor extends BaseElementProcessor {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int largeTableThreshold;
+    private final int flushEvery;
 
-    @Override
-    public void process(Document document, PdfTemplate.Element element, Map<String, Object> data) throws Exception {
-        // Convert content to TableContent
-        PdfTemplate.TableContent tableContent;
+    public TableElementProcessor(PdfProperties.Tables tables) {
+        this.largeTableThreshold = tables.getLargeTableThreshold();
+        this.flushEvery = Math.max(1, tables.getFlushEvery());
+    }
 
-        if (element.getContent() instanceof Map) {
-            tableContent = objectMapper.convertValue(element.getContent(), PdfTemplate.TableContent.class);
-        } else {
+    @Override
+    public Object compileContent(PdfTemplate.Element element) {
+        // Convert content to TableContent once per template version
+        if (!(element.getContent() instanceof Map)) {
             throw new IllegalArgumentException("Table content must be a valid TableContent object");
         }
 
-        // Resolve dynamic data source if specified
-        if (element.getProperties() != null && element.getProperties().containsKey("dataSource")) {
-            String dataSource = element.getProperties().get("dataSource").toString();
-            Object tableData = data.get(dataSource);
+        PdfTemplate.TableContent tableContent =
+                objectMapper.convertValue(element.getContent(), PdfTemplate.TableContent.class);
 
-            if (tableData instanceof List) {
-                tableContent = buildTableFromDataSource((List<?>) tableData, tableContent);
+        String dataSource = element.getProperties() != null && element.getProperties().get("dataSource") != null
+                ? element.getProperties().get("dataSource").toString()
+                : null;
+
+        return CompiledTable.of(tableContent, dataSource);
+    }
+
+    /**
+     * Resolves the headers and all rows ahead of layout. Large tables and tables reading
+     * an iterator are not prepared: their rows are read as the table is laid out and
+     * flushed, so they are never all held at once.
+     */
+    @Override
+    public Object prepare(CompiledElement element, Map<String, Object> data) {
+        CompiledTable tableContent = (CompiledTable) element.getContent();
+
+        Iterator<?> rows = tableContent.getRows().iterator();
+        boolean fromDataSource = false;
+        int rowCount = tableContent.getRows().size();
+        if (tableContent.getDataSource() != null) {
+            Object tableData = data.get(tableContent.getDataSource());
+            if (tableData instanceof Collection<?> collection && !collection.isEmpty()) {
+                rows = collection.iterator();
+                fromDataSource = true;
+                rowCount = collection.size();
+            } else if (iteratorOf(tableData) != null) {
+                return null;
             }
         }
+        if (isLargeTable(element, rowCount)) {
+            return null;
+        }
+
+        List<String> headers = new ArrayList<>();
+        for (PlaceholderTemplate header : tableContent.getHeaders()) {
+            headers.add(resolveContent(header, data));
+        }
+        List<List<String>> resolvedRows = new ArrayList<>(rowCount);
+        for (List<?> row = nextRow(rows, fromDataSource, tableContent); row != null;
+             row = nextRow(rows, fromDataSource, tableContent)) {
+            List<String> resolvedRow = new ArrayList<>(row.size());
+            for (Object cellValue : row) {
+                resolvedRow.add(resolveContent(cellValue, data));
+            }
+            resolvedRows.add(resolvedRow);
+        }
+        return new PreparedTable(headers, resolvedRows);
+    }
+
+    @Override
+    public void process(RenderContext context, CompiledElement element, Object prepared) throws Exception {
+        CompiledTable tableContent = (CompiledTable) element.getContent();
+        Map<String, Object> data = context.getData();
+        PreparedTable preparedTable = (PreparedTable) prepared;
+
+        // Rows are consumed one at a time, from the template or from the data source
+        Iterator<?> rows = tableContent.getRows().iterator();
+        boolean fromDataSource = false;
+        int rowCount = tableContent.getRows().size();
+        if (preparedTable != null) {
+            rows = preparedTable.rows().iterator();
+            rowCount = preparedTable.rows().size();
+        } else if (tableContent.getDataSource() != null) {
+            Object tableData = data.get(tableContent.getDataSource());
+            Iterator<?> source = iteratorOf(tableData);
+
+            if (source != null && source.hasNext()) {
+                rows = source;
+                fromDataSource = true;
+                rowCount = tableData instanceof Collection<?> collection ? collection.size() : -1;
+            } else if (source != null) {
+                log.warn("TableElementProcessor: Data source is empty for dynamic table.");
+            }
+        }
+
+        List<?> row = nextRow(rows, fromDataSource, tableContent);
 
         // Determine number of columns safely
         int numColumns = 0;
-        if (tableContent.getHeaders() != null && !tableContent.getHeaders().isEmpty()) {
+        if (tableContent.hasHeaders()) {
             numColumns = tableContent.getHeaders().size();
-        } else if (tableContent.getRows() != null && !tableContent.getRows().isEmpty()) {
-            numColumns = tableContent.getRows().get(0).size();
+        } else if (row != null) {
+            numColumns = row.size();
         }
 
         // Safety fallback
@@ -52,103 +133,140 @@ public class TableElementProcessor extends BaseElementProcessor {
             log.warn("TableElementProcessor: No valid headers or rows found for element '{}', defaulting to 1 column.", element.getId());
         }
 
-        // Create table
+        // Create table; large tables are added first and then filled and flushed in chunks
+        boolean largeTable = isLargeTable(element, rowCount);
         Table table;
-        if (tableContent.getTableStyle() != null && tableContent.getTableStyle().getColumnWidths() != null) {
-            Float[] widths = tableContent.getTableStyle().getColumnWidths();
-            float[] columnWidths = new float[widths.length];
-            for (int i = 0; i < widths.length; i++) {
-                columnWidths[i] = widths[i];
-            }
-            table = new Table(UnitValue.createPercentArray(columnWidths));
+        if (tableContent.getColumnWidths() != null) {
+            table = new Table(UnitValue.createPercentArray(tableContent.getColumnWidths()), largeTable);
         } else {
-            table = new Table(numColumns);
+            table = new Table(numColumns, largeTable);
         }
 
         // Set table width
-        if (element.getPosition() != null && element.getPosition().getWidth() != null) {
-            table.setWidth(UnitValue.createPointValue(element.getPosition().getWidth()));
+        if (element.getWidth() != null) {
+            table.setWidth(UnitValue.createPointValue(element.getWidth()));
         } else {
             table.setWidth(UnitValue.createPercentValue(100));
         }
 
         // Add headers
-        if (tableContent.getHeaders() != null && !tableContent.getHeaders().isEmpty()) {
-            for (String header : tableContent.getHeaders()) {
-                String resolvedHeader = resolveContent(header, data);
-                Cell cell = new Cell().add(new Paragraph(resolvedHeader));
+        List<PlaceholderTemplate> headers = tableContent.getHeaders();
+        for (int i = 0; i < headers.size(); i++) {
+            String resolvedHeader = preparedTable != null
+                    ? preparedTable.headers().get(i)
+                    : resolveContent(headers.get(i), data);
+            Cell cell = new Cell().add(new Paragraph(resolvedHeader));
 
-                if (tableContent.getTableStyle() != null && tableContent.getTableStyle().getHeaderStyle() != null) {
-                    applyCellStyle(cell, tableContent.getTableStyle().getHeaderStyle());
-                }
-
-                table.addHeaderCell(cell);
+            if (tableContent.getHeaderStyle() != null) {
+                applyCellStyle(context, cell, tableContent.getHeaderStyle());
             }
+
+            table.addHeaderCell(cell);
+        }
+
+        if (largeTable) {
+            context.getDocument().add(table);
         }
 
         // Add rows
-        if (tableContent.getRows() != null && !tableContent.getRows().isEmpty()) {
-            boolean alternate = false;
-            for (List<String> row : tableContent.getRows()) {
-                for (String cellValue : row) {
-                    String resolvedValue = resolveContent(cellValue, data);
-                    Cell cell = new Cell().add(new Paragraph(resolvedValue));
-
-                    if (tableContent.getTableStyle() != null) {
-                        PdfTemplate.Style cellStyle = alternate && tableContent.getTableStyle().getAlternateRowStyle() != null
-                                ? tableContent.getTableStyle().getAlternateRowStyle()
-                                : tableContent.getTableStyle().getRowStyle();
-
-                        if (cellStyle != null) {
-                            applyCellStyle(cell, cellStyle);
-                        }
-                    }
-
-                    table.addCell(cell);
+        boolean alternate = false;
+        int rowsAdded = 0;
+        while (row != null) {
+            CompiledStyle cellStyle = alternate && tableContent.getAlternateRowStyle() != null
+                    ? tableContent.getAlternateRowStyle()
+                    : tableContent.getRowStyle();
+
+            for (Object cellValue : row) {
+                String resolvedValue = preparedTable != null
+                        ? (String) cellValue
+                        : resolveContent(cellValue, data);
+                Cell cell = new Cell().add(new Paragraph(resolvedValue));
+
+                if (cellStyle != null) {
+                    applyCellStyle(context, cell, cellStyle);
                 }
-                alternate = !alternate;
+
+                table.addCell(cell);
             }
+            alternate = !alternate;
+
+            // Lay out and release the rows added so far
+            if (largeTable && ++rowsAdded % flushEvery == 0) {
+                table.flush();
+            }
+            row = nextRow(rows, fromDataSource, tableContent);
         }
 
-        // Add the completed table to the document
-        document.add(table);
+        if (largeTable) {
+            table.complete();
+        } else {
+            // Add the completed table to the document
+            context.getDocument().add(table);
+        }
     }
 
     /**
-     * Builds table rows dynamically from a provided data source (List of Map objects)
+     * Headers and rows of a table resolved by {@link #prepare}.
      */
-    private PdfTemplate.TableContent buildTableFromDataSource(List<?> dataList,
-                                                              PdfTemplate.TableContent templateContent) {
-        if (dataList.isEmpty()) {
-            log.warn("TableElementProcessor: Data source is empty for dynamic table.");
-            return templateContent;
-        }
-
-        List<List<String>> rows = new java.util.ArrayList<>();
-
-        for (Object item : dataList) {
-            if (item instanceof Map) {
-                Map<?, ?> rowMap = (Map<?, ?>) item;
-                List<String> row = new java.util.ArrayList<>();
-
-                // Use header order to extract values
-                if (templateContent.getHeaders() != null && !templateContent.getHeaders().isEmpty()) {
-                    for (String header : templateContent.getHeaders()) {
-                        Object value = rowMap.get(header);
-                        row.add(value != null ? value.toString() : "");
-                    }
-                } else {
-                    // If no headers, just add all values in map order
-                    for (Object value : rowMap.values()) {
-                        row.add(value != null ? value.toString() : "");
-                    }
-                }
+    private record PreparedTable(List<String> headers, List<List<String>> rows) {
+    }
+
+    /**
+     * Large-table mode is used when the element asks for it ({@code largeTable: true}), or
+     * when the row count exceeds {@code pdf.tables.large-table-threshold} or is unknown
+     * because the data source is an iterator.
+     */
+    private boolean isLargeTable(CompiledElement element, int rowCount) {
+        if (element.getProperty("largeTable") instanceof Boolean largeTable) {
+            return largeTable;
+        }
+        return rowCount < 0 || rowCount > largeTableThreshold;
+    }
 
-                rows.add(row);
+    private static Iterator<?> iteratorOf(Object tableData) {
+        if (tableData instanceof Iterable<?> iterable) {
+            return iterable.iterator();
+        }
+        if (tableData instanceof Iterator<?> iterator) {
+            return iterator;
+        }
+        return null;
+    }
+
+    /**
+     * The cell values of the next row, or {@code null} when there are no more rows.
+     * Data source entries are maps read in header order (map order without headers);
+     * entries that are not maps are skipped.
+     */
+    private List<?> nextRow(Iterator<?> rows, boolean fromDataSource, CompiledTable templateContent) {
+        while (rows.hasNext()) {
+            Object item = rows.next();
+            if (!fromDataSource) {
+                return (List<?>) item;
+            }
+            if (item instanceof Map<?, ?> rowMap) {
+                return cellsOf(rowMap, templateContent);
+            }
+        }
+        return null;
+    }
+
+    private List<Object> cellsOf(Map<?, ?> rowMap, CompiledTable templateContent) {
+        List<Object> row = new ArrayList<>();
+
+        // Use header order to extract values
+        if (templateContent.hasHeaders()) {
+            for (PlaceholderTemplate header : templateContent.getHeaders()) {
+                Object value = rowMap.get(header.getSource());
+                row.add(value != null ? value.toString() : "");
+            }
+        } else {
+            // If no headers, just add all values in map order
+            for (Object value : rowMap.values()) {
+                row.add(value != null ? value.toString() : "");
             }
         }
 
-        templateContent.setRows(rows);
-        return templateContent;
+        return row;
     }
 }
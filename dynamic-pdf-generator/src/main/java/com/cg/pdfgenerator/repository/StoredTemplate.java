@@ -0,0 +1,13 @@
+package com.cg.pdfgenerator.repository;
+
+import com.cg.pdfgenerator.model.PdfTemplate;
+
+/**
+ * A template as read from or written to the repository, with its version.
+ */
+public record StoredTemplate(PdfTemplate template, long version) {
+
+    public String templateId() {
+        return template.getTemplateId();
+    }
+}
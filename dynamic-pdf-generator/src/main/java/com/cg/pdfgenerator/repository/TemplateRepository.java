@@ -1,5 +1,419 @@
 package com.cg.pdfgenerator.repository;
 
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Templates persisted as one JSON file per template in {@code pdf.templates.dir}, named
+ * after the template id, so they can also be edited or dropped in by hand.
+ *
+ * <p>Versions are tracked in an index of file stamps (version, modification time and
+ * size per template) that is periodically written to a small snapshot file. A restart
+ * reads the snapshot and compares stamps instead of parsing every template; templates
+ * are only parsed when they are first used.
+ *
+ * <p>A deleted template leaves a tombstone with its last version in the index, so a
+ * template saved again under the same id continues from there. Versions of an id never
+ * repeat, which generated documents are cached and tagged by.
+ */
+@Repository
+@Slf4j
 public class TemplateRepository {
 
+    private static final String SUFFIX = ".json";
+    private static final String SNAPSHOT = ".snapshot.json";
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]*");
+    private static final TypeReference<Map<String, FileStamp>> SNAPSHOT_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final Path dir;
+    private final boolean watchEnabled;
+    private final Map<String, FileStamp> index = new ConcurrentHashMap<>();
+    private final Map<String, Long> reserved = new HashMap<>();
+    private final AtomicBoolean snapshotStale = new AtomicBoolean();
+    private volatile WatchService watchService;
+
+    public TemplateRepository(ObjectMapper objectMapper, PdfProperties properties) throws IOException {
+        this.objectMapper = objectMapper;
+        this.dir = properties.getTemplates().getDir().toAbsolutePath().normalize();
+        this.watchEnabled = properties.getTemplates().isWatch();
+        Files.createDirectories(dir);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        writeSnapshot();
+    }
+
+    public static boolean isValidId(String templateId) {
+        return templateId != null && VALID_ID.matcher(templateId).matches();
+    }
+
+    /**
+     * Builds the index from the snapshot and the files in the directory. Files changed
+     * since the snapshot was written get the next version; none of them is parsed here.
+     *
+     * @return the ids of all stored templates
+     */
+    public synchronized Set<String> loadIndex() throws IOException {
+        long start = System.nanoTime();
+        Map<String, FileStamp> snapshot = readSnapshot();
+        int changed = 0;
+
+        index.clear();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String templateId = idOf(file);
+                if (templateId == null) {
+                    continue;
+                }
+                FileStamp stamp = stampOf(file, snapshot.get(templateId));
+                if (!stamp.equals(snapshot.get(templateId))) {
+                    changed++;
+                }
+                index.put(templateId, stamp);
+            }
+        }
+        // Templates deleted before or since the snapshot keep their last version
+        for (Map.Entry<String, FileStamp> entry : snapshot.entrySet()) {
+            if (!index.containsKey(entry.getKey())) {
+                FileStamp tombstone = entry.getValue().tombstone();
+                if (!tombstone.equals(entry.getValue())) {
+                    changed++;
+                }
+                index.put(entry.getKey(), tombstone);
+            }
+        }
+
+        if (changed > 0 || snapshot.size() != index.size()) {
+            snapshotStale.set(true);
+        }
+        Set<String> ids = ids();
+        log.info("Indexed {} templates in {} ({} changed since the snapshot) in {} ms", ids.size(), dir,
+                changed, (System.nanoTime() - start) / 1_000_000);
+        return ids;
+    }
+
+    /**
+     * Reads the template from its file. Empty if there is no such template or its file
+     * cannot be parsed, in which case its version is left as it was, so a half-written
+     * edit is not counted. The file is parsed without holding the repository lock, so
+     * saves and lookups of other templates do not wait for it.
+     */
+    public Optional<StoredTemplate> find(String templateId) {
+        if (!isValidId(templateId)) {
+            return Optional.empty();
+        }
+        Path file = fileOf(templateId);
+        while (true) {
+            FileStamp known = index.get(templateId);
+            BasicFileAttributes attributes;
+            PdfTemplate template;
+            try {
+                // Attributes first: a file replaced while it is parsed then only looks changed again
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                template = attributes.isRegularFile() ? read(file, templateId) : null;
+            } catch (NoSuchFileException e) {
+                attributes = null;
+                template = null;
+            } catch (IOException e) {
+                log.warn("Could not read template file {}: {}", file, e.getMessage());
+                return Optional.empty();
+            }
+            synchronized (this) {
+                if (template == null) {
+                    if (!Files.isRegularFile(file)) {
+                        bury(templateId);
+                        return Optional.empty();
+                    }
+                } else if (Objects.equals(index.get(templateId), known)) {
+                    FileStamp stamp = stampOf(templateId, attributes, known);
+                    if (!stamp.equals(known)) {
+                        index.put(templateId, stamp);
+                        snapshotStale.set(true);
+                    }
+                    return Optional.of(new StoredTemplate(template, stamp.version()));
+                }
+            }
+            // Saved or read by someone else in the meantime; read it again
+        }
+    }
+
+    /**
+     * The ids of all indexed templates.
+     */
+    public Set<String> ids() {
+        Set<String> ids = new HashSet<>();
+        index.forEach((templateId, stamp) -> {
+            if (!stamp.isDeleted()) {
+                ids.add(templateId);
+            }
+        });
+        return Set.copyOf(ids);
+    }
+
+    public boolean exists(String templateId) {
+        return isValidId(templateId) && Files.isRegularFile(fileOf(templateId));
+    }
+
+    /**
+     * The version of the stored template as indexed, or of the template last stored
+     * under this id if it was deleted; 0 if it is not known.
+     */
+    public long currentVersion(String templateId) {
+        FileStamp stamp = index.get(templateId);
+        return stamp != null ? stamp.version() : 0;
+    }
+
+    /**
+     * A version for the next {@link #save} of the template, higher than any it had or
+     * was given before, including by saves still in progress.
+     */
+    public synchronized long nextVersion(String templateId) {
+        long version = Math.max(currentVersion(templateId), reserved.getOrDefault(templateId, 0L)) + 1;
+        reserved.put(templateId, version);
+        return version;
+    }
+
+    /**
+     * Writes the template under the given version, see {@link #nextVersion}. The file is
+     * replaced atomically, so readers and the directory watcher never see a partial template.
+     * A save that finishes after a later version was written is dropped.
+     */
+    public synchronized void save(PdfTemplate template, long version) {
+        String templateId = template.getTemplateId();
+        if (!isValidId(templateId)) {
+            throw new IllegalArgumentException("Invalid template ID: " + templateId);
+        }
+        FileStamp current = index.get(templateId);
+        if (current != null && !current.isDeleted() && current.version() > version) {
+            reserved.remove(templateId, version);
+            return;
+        }
+        Path file = fileOf(templateId);
+        Path partial = dir.resolve("." + templateId + SUFFIX + ".tmp");
+        try {
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(partial.toFile(), template);
+            Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            index.put(templateId, new FileStamp(version, attributes.lastModifiedTime().toMillis(), attributes.size()));
+            reserved.remove(templateId, version);
+            snapshotStale.set(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store template " + templateId, e);
+        }
+    }
+
+    public synchronized void delete(String templateId) {
+        if (!isValidId(templateId)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(fileOf(templateId));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not delete template " + templateId, e);
+        }
+        bury(templateId);
+    }
+
+    private void bury(String templateId) {
+        FileStamp stamp = index.get(templateId);
+        if (stamp != null && !stamp.isDeleted()) {
+            index.put(templateId, stamp.tombstone());
+            snapshotStale.set(true);
+        }
+    }
+
+    /**
+     * Calls the listener with the id of every template whose file is created, changed or
+     * deleted, on a background thread, until the application shuts down. Does nothing
+     * when {@code pdf.templates.watch} is off.
+     */
+    public void watch(Consumer<String> listener) throws IOException {
+        if (!watchEnabled) {
+            return;
+        }
+        WatchService service = dir.getFileSystem().newWatchService();
+        dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        watchService = service;
+
+        Thread thread = new Thread(() -> poll(service, listener), "template-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for template changes", dir);
+    }
+
+    /**
+     * Writes the snapshot if the index changed since it was last written.
+     */
+    @Scheduled(fixedDelay = 10, timeUnit = TimeUnit.SECONDS)
+    public void writeSnapshot() {
+        if (!snapshotStale.getAndSet(false)) {
+            return;
+        }
+        Path snapshot = dir.resolve(SNAPSHOT);
+        Path partial = dir.resolve(SNAPSHOT + ".tmp");
+        try {
+            objectMapper.writeValue(partial.toFile(), new HashMap<>(index));
+            Files.move(partial, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            snapshotStale.set(true);
+            log.warn("Could not write template snapshot {}: {}", snapshot, e.getMessage());
+        }
+    }
+
+    private Map<String, FileStamp> readSnapshot() {
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (!Files.isRegularFile(snapshot)) {
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(snapshot.toFile(), SNAPSHOT_TYPE);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable template snapshot {}: {}", snapshot, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void poll(WatchService service, Consumer<String> listener) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Set<String> changed = new LinkedHashSet<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        changed.addAll(index.keySet());
+                        changed.addAll(listIds());
+                    } else if (event.context() instanceof Path file) {
+                        String templateId = idOf(file);
+                        if (templateId != null) {
+                            changed.add(templateId);
+                        }
+                    }
+                }
+                key.reset();
+
+                for (String templateId : changed) {
+                    try {
+                        listener.accept(templateId);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not reload template {}: {}", templateId, e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Template watcher stopped");
+        }
+    }
+
+    private List<String> listIds() {
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String templateId = idOf(file);
+                if (templateId != null) {
+                    ids.add(templateId);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list templates in {}: {}", dir, e.getMessage());
+        }
+        return ids;
+    }
+
+    /**
+     * The file name is authoritative: a template is stored under its id, and a file dropped
+     * in by hand defines the template of that name whatever id it contains.
+     */
+    private PdfTemplate read(Path file, String templateId) throws IOException {
+        PdfTemplate template = objectMapper.readValue(file.toFile(), PdfTemplate.class);
+        if (template.getTemplateId() != null && !template.getTemplateId().equals(templateId)) {
+            log.warn("Template file {} declares id {}, using {}", file.getFileName(), template.getTemplateId(), templateId);
+        }
+        template.setTemplateId(templateId);
+        return template;
+    }
+
+    /**
+     * The file's current stamp: the known version if the file is unchanged, the next one otherwise.
+     */
+    private FileStamp stampOf(Path file, FileStamp known) throws IOException {
+        return stampOf(idOf(file), Files.readAttributes(file, BasicFileAttributes.class), known);
+    }
+
+    private FileStamp stampOf(String templateId, BasicFileAttributes attributes, FileStamp known) {
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (known != null && known.lastModified() == lastModified && known.size() == attributes.size()) {
+            return known;
+        }
+        long version = Math.max(known != null ? known.version() : 0, reserved.getOrDefault(templateId, 0L)) + 1;
+        return new FileStamp(version, lastModified, attributes.size());
+    }
+
+    private Path fileOf(String templateId) {
+        return dir.resolve(templateId + SUFFIX);
+    }
+
+    private static String idOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(SUFFIX)) {
+            return null;
+        }
+        String templateId = name.substring(0, name.length() - SUFFIX.length());
+        return isValidId(templateId) ? templateId : null;
+    }
+
+    /**
+     * A tombstone has no file and only keeps the version of a deleted template.
+     */
+    private record FileStamp(long version, long lastModified, long size) {
+
+        FileStamp tombstone() {
+            return new FileStamp(version, -1, -1);
+        }
+
+        @JsonIgnore
+        boolean isDeleted() {
+            return size < 0;
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.model.BatchResult;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Renders many documents from one template. The template is compiled once for the
+ * whole batch, fonts and images come from the shared registry and cache, and records
+ * are rendered in parallel on a fixed worker pool ({@code pdf.batch.workers}).
+ *
+ * <p>Records are pulled from an iterator and only a bounded number of rendered
+ * documents is held in memory, so a batch can be fed from a stream of any length.
+ * Output is written in record order.
+ */
+@Service
+@Slf4j
+public class BatchPdfService {
+
+    private static final String DEFAULT_FILE_NAME_PATTERN = "document-{{index}}.pdf";
+    private static final String ERRORS_ENTRY = "errors.txt";
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<>() {};
+
+    private final TemplateStore templateStore;
+    private final PdfGeneratorService pdfGeneratorService;
+    private final ObjectMapper objectMapper;
+    private final RenderLimiter renderLimiter;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final Path outputRoot;
+
+    public BatchPdfService(TemplateStore templateStore, PdfGeneratorService pdfGeneratorService,
+                           ObjectMapper objectMapper, RenderLimiter renderLimiter, PdfProperties properties) {
+        this.templateStore = templateStore;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.objectMapper = objectMapper;
+        this.renderLimiter = renderLimiter;
+
+        PdfProperties.Batch batch = properties.getBatch();
+        int workerCount = Math.max(1, batch.getWorkers());
+        this.workers = Executors.newFixedThreadPool(workerCount, workerThreadFactory());
+        this.maxInFlight = workerCount * Math.max(1, batch.getQueueDepth());
+        this.outputRoot = batch.getOutputDir() != null ? batch.getOutputDir().toAbsolutePath().normalize() : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Reads newline-delimited JSON objects lazily, one record per line.
+     */
+    public Iterator<Map<String, Object>> readNdjson(InputStream in) throws IOException {
+        return objectMapper.readerFor(RECORD_TYPE).readValues(in);
+    }
+
+    /**
+     * Streams the batch as a ZIP archive with one PDF per record. Records that fail to
+     * render are skipped and listed in an {@code errors.txt} entry at the end.
+     */
+    public BatchResult writeZip(String templateId, Iterator<Map<String, Object>> records,
+                                String fileNamePattern, OutputStream out) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // PDF content streams are already compressed
+        zip.setLevel(Deflater.BEST_SPEED);
+
+        BatchResult result = run(templateId, records, fileNamePattern, (fileName, content) -> {
+            zip.putNextEntry(new ZipEntry(fileName));
+            zip.write(content);
+            zip.closeEntry();
+        });
+
+        if (!result.getErrors().isEmpty()) {
+            zip.putNextEntry(new ZipEntry(ERRORS_ENTRY));
+            zip.write(String.join("\n", result.getErrors()).getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.finish();
+        out.flush();
+        return result;
+    }
+
+    /**
+     * Writes one PDF per record into a directory below {@code pdf.batch.output-dir}.
+     */
+    public BatchResult writeToDirectory(String templateId, Iterator<Map<String, Object>> records,
+                                        String fileNamePattern, String outputDirectory) throws IOException {
+        if (outputRoot == null) {
+            throw new IllegalStateException("Directory output is disabled, set pdf.batch.output-dir");
+        }
+        Path directory = outputRoot.resolve(outputDirectory != null ? outputDirectory : "").normalize();
+        if (!directory.startsWith(outputRoot)) {
+            throw new IllegalArgumentException("Output directory must be inside pdf.batch.output-dir: " + outputDirectory);
+        }
+        Files.createDirectories(directory);
+
+        BatchResult result = run(templateId, records, fileNamePattern,
+                (fileName, content) -> Files.write(directory.resolve(fileName), content));
+        result.setOutputDirectory(directory.toString());
+        return result;
+    }
+
+    private BatchResult run(String templateId, Iterator<Map<String, Object>> records,
+                            String fileNamePattern, DocumentSink sink) throws IOException {
+        long start = System.nanoTime();
+        CompiledTemplate template = templateStore.getCompiledTemplate(templateId);
+        PlaceholderTemplate fileNames = PlaceholderTemplate.parse(
+                fileNamePattern != null && !fileNamePattern.isBlank() ? fileNamePattern : DEFAULT_FILE_NAME_PATTERN);
+
+        BatchResult result = BatchResult.builder().templateId(templateId).build();
+        Set<String> usedNames = new HashSet<>();
+        usedNames.add(ERRORS_ENTRY);
+        Deque<Future<RenderedDocument>> pending = new ArrayDeque<>();
+
+        try {
+            int index = 0;
+            while (records.hasNext()) {
+                Map<String, Object> data = records.next();
+                int recordIndex = ++index;
+                pending.add(workers.submit(() -> render(template, fileNames, recordIndex, data)));
+                if (pending.size() >= maxInFlight) {
+                    write(pending.poll(), sink, usedNames, result);
+                }
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), sink, usedNames, result);
+            }
+        } finally {
+            // Only non-empty when the sink failed, e.g. the client went away
+            pending.forEach(future -> future.cancel(true));
+        }
+
+        log.info("Batch for template {} finished: {} documents, {} failed in {} ms", templateId,
+                result.getTotal(), result.getFailed(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private RenderedDocument render(CompiledTemplate template, PlaceholderTemplate fileNames,
+                                    int index, Map<String, Object> record) {
+        Map<String, Object> data = record != null ? record : new HashMap<>();
+        Map<String, Object> nameData = new HashMap<>(data);
+        nameData.put("index", index);
+        String fileName = sanitizeFileName(fileNames.render(nameData), index);
+
+        // Batch workers queue for a render slot instead of failing when interactive requests hold them
+        try {
+            RenderLimiter.Permit permit = renderLimiter.acquireWhenAvailable();
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                pdfGeneratorService.render(template, data, out);
+                return new RenderedDocument(index, fileName, out.toByteArray(), null);
+            } finally {
+                permit.close();
+            }
+        } catch (Exception e) {
+            log.warn("Batch record {} ({}) failed: {}", index, fileName, e.getMessage());
+            return new RenderedDocument(index, fileName, null, e);
+        }
+    }
+
+    private void write(Future<RenderedDocument> future, DocumentSink sink,
+                       Set<String> usedNames, BatchResult result) throws IOException {
+        RenderedDocument document;
+        try {
+            document = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Batch worker failed", e.getCause());
+        }
+
+        result.setTotal(result.getTotal() + 1);
+        if (document.error() != null) {
+            result.setFailed(result.getFailed() + 1);
+            result.getErrors().add("#" + document.index() + " " + document.fileName() + ": " + document.error().getMessage());
+            return;
+        }
+
+        // A suffixed name can be another record's name too, e.g. "a-3", "a", "a"
+        String fileName = document.fileName();
+        String baseName = fileName.substring(0, fileName.length() - ".pdf".length()) + "-" + document.index();
+        for (int attempt = 1; !usedNames.add(fileName); attempt++) {
+            fileName = (attempt == 1 ? baseName : baseName + "-" + attempt) + ".pdf";
+        }
+        sink.accept(fileName, document.content());
+        result.setSucceeded(result.getSucceeded() + 1);
+    }
+
+    private static String sanitizeFileName(String name, int index) {
+        String cleaned = name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").replaceAll("^[.\\s]+", "").trim();
+        if (cleaned.isEmpty()) {
+            cleaned = "document-" + index;
+        }
+        return cleaned.toLowerCase().endsWith(".pdf") ? cleaned : cleaned + ".pdf";
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pdf-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    @FunctionalInterface
+    private interface DocumentSink {
+        void accept(String fileName, byte[] content) throws IOException;
+    }
+
+    private record RenderedDocument(int index, String fileName, byte[] content, Exception error) {
+    }
+}
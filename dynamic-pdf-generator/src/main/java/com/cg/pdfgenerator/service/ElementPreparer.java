@@ -0,0 +1,151 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.StaticFragment;
+import com.cg.pdfgenerator.processor.ElementProcessor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs {@link ElementProcessor#prepare} for all elements of a document in parallel, so
+ * placeholders, number formats and table rows further down are resolved while the
+ * elements before them are laid out. Layout stays on the rendering thread and in order.
+ *
+ * <p>Preparation runs on the application task executor, virtual threads on Java 21. An
+ * element whose preparation has not started by the time layout reaches it is prepared
+ * by the rendering thread itself, so a busy executor never makes a document slower than
+ * preparing everything in order would.
+ */
+@Component
+public class ElementPreparer {
+
+    private final Executor executor;
+    private final boolean enabled;
+
+    public ElementPreparer(PdfProperties properties,
+                           @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.executor = executor;
+        this.enabled = properties.getRender().isParallelPreparation();
+    }
+
+    /**
+     * Starts preparing the elements of the template for this data. Elements of a static
+     * fragment, which is usually stamped as a whole, and elements that only decorate pages
+     * are left out. The data must not change until the document is laid out.
+     */
+    public Prepared prepare(CompiledTemplate template, Map<String, Object> data) {
+        if (!enabled) {
+            return Prepared.NONE;
+        }
+        List<CompiledElement> elements = template.getElements();
+        List<Task> tasks = new ArrayList<>(Collections.nCopies(elements.size(), null));
+        for (int i = 0; i < elements.size(); i++) {
+            StaticFragment fragment = template.fragmentAt(i);
+            if (fragment != null) {
+                i += fragment.size() - 1;
+                continue;
+            }
+            CompiledElement element = elements.get(i);
+            if (element.getProcessor().decoratesOnly(element)) {
+                continue;
+            }
+            Task task = new Task(element, data);
+            tasks.set(i, task);
+            try {
+                executor.execute(task::run);
+            } catch (RejectedExecutionException e) {
+                // Prepared by the rendering thread when layout gets there
+            }
+        }
+        return new Prepared(tasks);
+    }
+
+    /**
+     * The preparation of one document's elements, by position in the template.
+     */
+    public static class Prepared {
+
+        /** Nothing prepared ahead; every element is prepared as layout reaches it. */
+        public static final Prepared NONE = new Prepared(List.of());
+
+        private final List<Task> tasks;
+
+        private Prepared(List<Task> tasks) {
+            this.tasks = tasks;
+        }
+
+        /**
+         * Whether the element at this position is prepared ahead. If not, it has to be laid
+         * out through {@link ElementProcessor#process(com.cg.pdfgenerator.engine.RenderContext,
+         * CompiledElement)}, which prepares it itself.
+         */
+        public boolean isPrepared(int index) {
+            return index < tasks.size() && tasks.get(index) != null;
+        }
+
+        /**
+         * What the element at this position was prepared into, waiting for it or preparing
+         * it on the calling thread if that has not started yet.
+         */
+        public Object get(int index) throws Exception {
+            Task task = tasks.get(index);
+            task.run();
+            try {
+                return task.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Skips the preparation of elements that have not started, after layout failed.
+         */
+        public void cancel() {
+            for (Task task : tasks) {
+                if (task != null) {
+                    task.started.set(true);
+                }
+            }
+        }
+    }
+
+    private static final class Task {
+        private final CompiledElement element;
+        private final Map<String, Object> data;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Task(CompiledElement element, Map<String, Object> data) {
+            this.element = element;
+            this.data = data;
+        }
+
+        // Runs at most once, on whichever thread gets there first
+        void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                result.complete(element.getProcessor().prepare(element, data));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package com.cg.pdfgenerator.service;
 
-import com.itextpdf.io.font.PdfEncodings;
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.cg.pdfgenerator.font.FallbackFonts;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.font.ScriptDetector;
+import com.cg.pdfgenerator.font.ScriptRun;
+import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.layout.element.Text;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class MultiLanguagePdfService {
     
-    private final Map<String, String> fontPaths = new HashMap<>();
-    private final Map<String, PdfFont> fontCache = new HashMap<>();
+    // Standard fonts picked by compiled styles, always available to the font provider
+    private static final List<String> STYLE_FONTS = List.of(StandardFonts.HELVETICA, StandardFonts.HELVETICA_BOLD,
+            StandardFonts.HELVETICA_OBLIQUE, StandardFonts.HELVETICA_BOLDOBLIQUE);
     
-    public MultiLanguagePdfService() {
+    // Order in which fonts are tried for characters the requested font lacks;
+    // for Han characters shared by several fonts the first one wins
+    private static final List<String> FALLBACK_ORDER = List.of("CYRILLIC", "VIETNAMESE", "ARABIC", "HEBREW",
+            "HINDI", "THAI", "TAMIL", "CHINESE", "JAPANESE", "KOREAN");
+    
+    private final Map<String, String> fontPaths = new ConcurrentHashMap<>();
+    private final FontRegistry fontRegistry;
+    private volatile FallbackFonts fallbackFonts;
+    
+    public MultiLanguagePdfService(FontRegistry fontRegistry) {
+        this.fontRegistry = fontRegistry;
         initializeFonts();
     }
     
@@ -41,95 +62,92 @@ public class MultiLanguagePdfService {
         log.info("Font paths initialized for multiple languages");
     }
     
-    public PdfFont getFont(String language) throws Exception {
-        if (language == null || language.isEmpty()) {
-            language = "ENGLISH";
-        }
-        
-        language = language.toUpperCase();
-        
-        // Check cache first
-        if (fontCache.containsKey(language)) {
-            return fontCache.get(language);
+    /**
+     * Parses every configured font file once at startup so requests only bind them to
+     * documents, and builds the fallback font set from them.
+     */
+    @PostConstruct
+    public void preloadFonts() {
+        rebuildFallbackFonts();
+    }
+    
+    /**
+     * The fonts every document falls back to, built from {@code fontPaths} once at startup
+     * and again when a custom font is registered.
+     */
+    public FallbackFonts getFallbackFonts() {
+        return fallbackFonts;
+    }
+    
+    private synchronized void rebuildFallbackFonts() {
+        Set<String> fonts = new LinkedHashSet<>(STYLE_FONTS);
+        for (String language : FALLBACK_ORDER) {
+            String fontPath = fontPaths.get(language);
+            if (fontPath != null) {
+                fonts.add(fontPath);
+            }
         }
-        
-        String fontPath = fontPaths.getOrDefault(language, "Helvetica");
-        PdfFont font;
+        fonts.addAll(fontPaths.values());
+        fallbackFonts = fontRegistry.createFallbackFonts(StandardFonts.HELVETICA, fonts);
+    }
+    
+    /**
+     * Returns the font for the language, created at most once for the given document.
+     */
+    public PdfFont getFont(String language, DocumentFonts documentFonts) throws Exception {
+        String fontPath = getFontPath(language);
         
         try {
-            if (fontPath.equals("Helvetica") || fontPath.equals("Times-Roman") || fontPath.equals("Courier")) {
-                // Standard font
-                font = PdfFontFactory.createFont(fontPath);
-            } else {
-                // Unicode font from file
-                font = PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H, 
-                    PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-            }
-            
-            fontCache.put(language, font);
-            log.info("Font loaded for language: {}", language);
-            return font;
-            
+            return documentFonts.get(fontPath);
         } catch (Exception e) {
             log.error("Error loading font for language: {}. Falling back to Helvetica", language, e);
-            // Fallback to standard font
-            font = PdfFontFactory.createFont("Helvetica");
-            return font;
+            return documentFonts.get(StandardFonts.HELVETICA);
         }
     }
     
-    public String detectLanguage(String text) {
-        if (text == null || text.isEmpty()) {
-            return "ENGLISH";
-        }
-        
-        // Chinese detection
-        if (text.matches(".*[\\u4E00-\\u9FA5]+.*")) {
-            return "CHINESE";
-        }
-        
-        // Japanese detection (Hiragana, Katakana)
-        if (text.matches(".*[\\u3040-\\u309F\\u30A0-\\u30FF]+.*")) {
-            return "JAPANESE";
-        }
-        
-        // Korean detection
-        if (text.matches(".*[\\uAC00-\\uD7AF]+.*")) {
-            return "KOREAN";
-        }
-        
-        // Arabic detection
-        if (text.matches(".*[\\u0600-\\u06FF]+.*")) {
-            return "ARABIC";
-        }
-        
-        // Hindi/Devanagari detection
-        if (text.matches(".*[\\u0900-\\u097F]+.*")) {
-            return "HINDI";
-        }
-        
-        // Thai detection
-        if (text.matches(".*[\\u0E00-\\u0E7F]+.*")) {
-            return "THAI";
-        }
+    /**
+     * Returns a new font for the language. The font program is shared, but the returned
+     * {@link PdfFont} belongs to whichever single document it is first used in.
+     */
+    public PdfFont getFont(String language) throws Exception {
+        String fontPath = getFontPath(language);
         
-        // Hebrew detection
-        if (text.matches(".*[\\u0590-\\u05FF]+.*")) {
-            return "HEBREW";
+        try {
+            return fontRegistry.createFont(fontPath);
+        } catch (Exception e) {
+            log.error("Error loading font for language: {}. Falling back to Helvetica", language, e);
+            return fontRegistry.createFont(StandardFonts.HELVETICA);
         }
-        
-        // Cyrillic detection
-        if (text.matches(".*[\\u0400-\\u04FF]+.*")) {
-            return "CYRILLIC";
+    }
+    
+    private String getFontPath(String language) {
+        if (language == null || language.isEmpty()) {
+            language = "ENGLISH";
         }
         
-        // Tamil detection
-        if (text.matches(".*[\\u0B80-\\u0BFF]+.*")) {
-            return "TAMIL";
+        return fontPaths.getOrDefault(language.toUpperCase(), StandardFonts.HELVETICA);
+    }
+    
+    /**
+     * The predominant non-Latin script of the text, or {@code ENGLISH}. Single pass, see {@link ScriptDetector}.
+     */
+    public String detectLanguage(String text) {
+        return ScriptDetector.detectLanguage(text);
+    }
+    
+    /**
+     * Splits mixed-script text into runs, each set in the font of its own script, so
+     * that for example an Arabic name inside an English sentence renders correctly.
+     */
+    public List<Text> createTextRuns(String text, DocumentFonts documentFonts) throws Exception {
+        List<ScriptRun> runs = ScriptDetector.analyze(text).runs();
+        List<Text> texts = new ArrayList<>(runs.size());
+        for (ScriptRun run : runs) {
+            Text part = new Text(run.textOf(text));
+            part.setFont(getFont(run.language(), documentFonts));
+            texts.add(part);
         }
-        
-        // Default to English/Latin
-        return "ENGLISH";
+        return texts;
     }
     
     public boolean isRTL(String language) {
@@ -143,7 +161,8 @@ public class MultiLanguagePdfService {
     
     public void registerCustomFont(String language, String fontPath) {
         fontPaths.put(language.toUpperCase(), fontPath);
-        fontCache.remove(language.toUpperCase()); // Clear cache to reload
+        fontRegistry.evict(fontPath); // Reload in case the file changed
+        rebuildFallbackFonts();
         log.info("Custom font registered for language: {}", language);
     }
 }
\ No newline at end of file
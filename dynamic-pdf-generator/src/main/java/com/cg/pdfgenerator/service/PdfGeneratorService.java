@@ -2,19 +2,47 @@
 // File: service/PdfGeneratorService.java
 package com.cg.pdfgenerator.service;
 
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.DocumentFragments;
+import com.cg.pdfgenerator.engine.DocumentStyles;
+import com.cg.pdfgenerator.engine.PageDecorations;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.engine.RenderContext;
+import com.cg.pdfgenerator.engine.RenderProgress;
+import com.cg.pdfgenerator.engine.StaticFragment;
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.image.DocumentImages;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.metrics.RenderMetrics;
+import com.cg.pdfgenerator.model.MergedGenerationRequest;
 import com.cg.pdfgenerator.model.PdfGenerationRequest;
-import com.cg.pdfgenerator.model.PdfTemplate;
-import com.cg.pdfgenerator.processor.*;
-import com.itextpdf.kernel.geom.PageSize;
+import com.cg.pdfgenerator.output.OutputCache;
+import com.cg.pdfgenerator.output.OutputProfile;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfOutline;
+import com.itextpdf.kernel.pdf.PdfPage;
+import com.itextpdf.kernel.pdf.PdfString;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.WriterProperties;
+import com.itextpdf.kernel.pdf.navigation.PdfExplicitDestination;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.AreaBreak;
+import com.itextpdf.layout.properties.AreaBreakType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 @Service
 @RequiredArgsConstructor
@@ -22,101 +50,392 @@ import java.util.Map;
 public class PdfGeneratorService {
 
     private final TemplateStore templateStore;
-    private final Map<String, ElementProcessor> processors = new HashMap<>();
+    private final FontRegistry fontRegistry;
+    private final ImageCache imageCache;
+    private final MultiLanguagePdfService multiLanguagePdfService;
+    private final RenderMetrics metrics;
+    private final OutputCache outputCache;
+    private final StaticFragments staticFragments;
+    private final StreamingDataReader streamingDataReader;
+    private final ElementPreparer elementPreparer;
 
-    @jakarta.annotation.PostConstruct
-    private void initializeProcessors() {
-        processors.put("TEXT", new TextElementProcessor());
-        processors.put("PARAGRAPH", new ParagraphElementProcessor());
-        processors.put("NUMBER", new NumberElementProcessor());
-        processors.put("TABLE", new TableElementProcessor());  // ← FIXED: Added TableElementProcessor
-
-        processors.put("IMAGE", new ImageElementProcessor());
-        processors.put("HEADER", new HeaderElementProcessor());
-        processors.put("FOOTER", new FooterElementProcessor());
-    }
+    /**
+     * Renders the document into memory. With the output cache enabled the result is
+     * cached, see {@link #findCached}.
+     */
     public byte[] generatePdf(PdfGenerationRequest request) throws Exception {
+        return generatePdf(request, documentKey(request));
+    }
+
+    /**
+     * Same as {@link #generatePdf(PdfGenerationRequest)} for a caller that already has the
+     * request's {@link #documentKey}, so the data is not hashed a second time.
+     */
+    public byte[] generatePdf(PdfGenerationRequest request, String documentKey) throws Exception {
         log.info("Generating PDF for template: {}", request.getTemplateId());
         
-        PdfTemplate template = templateStore.getTemplate(request.getTemplateId());
-        Map<String, Object> data = request.getData() != null ? request.getData() : new HashMap<>();
+        CompiledTemplate template = lookup(request.getTemplateId());
+        Map<String, Object> data = dataOf(request);
+        OutputProfile profile = profileOf(template, request.getOutputProfile());
         
         try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            
-            applyPageSettings(pdfDoc, template.getPageSettings());
-            
-            Document document = new Document(pdfDoc);
-            applyMargins(document, template.getPageSettings());
-            
-            if (template.getElements() != null) {
-                for (PdfTemplate.Element element : template.getElements()) {
-                    processElement(document, element, data);
-                }
-            }
-            
-            document.close();
+            render(template, data, baos, RenderProgress.NONE, profile, documentKey, true);
+            byte[] pdfBytes = baos.toByteArray();
+            outputCache.put(documentKey, pdfBytes);
             log.info("PDF generated successfully");
-            
-            return baos.toByteArray();
+            return pdfBytes;
         } catch (Exception e) {
             log.error("Error generating PDF", e);
             throw e;
         }
     }
-    
-    private void applyPageSettings(PdfDocument pdfDoc, PdfTemplate.PageSettings settings) {
-        if (settings == null) {
-            return;
+
+    /**
+     * Loads the images the request's document shows into the image cache, in parallel,
+     * so a caller can take a render slot afterwards and hold it only for layout. Images
+     * that fail to load are left for layout to report.
+     */
+    public void loadImages(PdfGenerationRequest request) {
+        CompiledTemplate template = lookup(request.getTemplateId());
+        Map<String, Object> data = dataOf(request);
+        prefetch(template, data);
+        for (CompiledElement element : template.getElements()) {
+            element.getProcessor().awaitPrefetch(element, data);
+        }
+    }
+
+    /**
+     * The key of the document the request produces, which only changes with the template
+     * version, the output profile or the data; null unless output is deterministic.
+     *
+     * @throws IllegalArgumentException if the template or the output profile does not exist
+     */
+    public String documentKey(PdfGenerationRequest request) {
+        if (!outputCache.isDeterministic()) {
+            return null;
         }
+        CompiledTemplate template = lookup(request.getTemplateId());
+        return outputCache.keyOf(template, profileOf(template, request.getOutputProfile()), dataOf(request));
+    }
+
+    /**
+     * The document generated earlier under the given key, or null if it is not cached.
+     */
+    public byte[] findCached(String documentKey) {
+        return outputCache.get(documentKey);
+    }
+
+    /**
+     * Renders the document directly into the given stream so pages reach the client
+     * as soon as iText flushes them. The stream is flushed but left open; closing it
+     * is the caller's responsibility.
+     */
+    public void generatePdf(PdfGenerationRequest request, OutputStream out) throws Exception {
+        log.info("Generating PDF for template: {}", request.getTemplateId());
         
-        PageSize pageSize = getPageSize(settings.getSize());
+        CompiledTemplate template = lookup(request.getTemplateId());
+        Map<String, Object> data = dataOf(request);
+        OutputProfile profile = profileOf(template, request.getOutputProfile());
         
-        if ("LANDSCAPE".equalsIgnoreCase(settings.getOrientation())) {
-            pageSize = pageSize.rotate();
+        try {
+            render(template, data, out, RenderProgress.NONE, profile);
+            log.info("PDF generated successfully");
+        } catch (Exception e) {
+            log.error("Error generating PDF", e);
+            throw e;
         }
+    }
+
+    /**
+     * Same as {@link #generatePdf(PdfGenerationRequest, OutputStream)} for data read from
+     * a JSON body while the document is rendered, see {@link StreamingDataReader}. The
+     * data is never known in full, so the output is neither cached nor given a fixed ID,
+     * and elements are prepared as layout reaches them rather than ahead.
+     */
+    public void generatePdf(String templateId, InputStream data, String outputProfile,
+                            OutputStream out) throws Exception {
+        log.info("Generating PDF from streamed data for template: {}", templateId);
+        
+        CompiledTemplate template = lookup(templateId);
+        OutputProfile profile = profileOf(template, outputProfile);
         
-        pdfDoc.setDefaultPageSize(pageSize);
+        try {
+            render(template, streamingDataReader.read(data, template.tableDataSources()),
+                    out, RenderProgress.NONE, profile, null, false);
+            log.info("PDF generated successfully");
+        } catch (Exception e) {
+            log.error("Error generating PDF", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Renders one document from an already compiled template. Callers producing many
+     * documents from the same template (batches) resolve the template once and call
+     * this per record; fonts and images are shared through the registry and cache.
+     */
+    public void render(CompiledTemplate template, Map<String, Object> data, OutputStream out) throws Exception {
+        render(template, data, out, RenderProgress.NONE);
+    }
+
+    /**
+     * Same as {@link #render(CompiledTemplate, Map, OutputStream)}, reporting elements
+     * processed and pages created so far after every element.
+     */
+    public void render(CompiledTemplate template, Map<String, Object> data, OutputStream out,
+                       RenderProgress progress) throws Exception {
+        render(template, data, out, progress, null);
     }
-    
-    private void applyMargins(Document document, PdfTemplate.PageSettings settings) {
-        if (settings == null) {
-            return;
+
+    /**
+     * Same as {@link #render(CompiledTemplate, Map, OutputStream, RenderProgress)}, written
+     * with the given profile, or the template's if it is null.
+     */
+    public void render(CompiledTemplate template, Map<String, Object> data, OutputStream out,
+                       RenderProgress progress, OutputProfile requested) throws Exception {
+        OutputProfile profile = requested != null ? requested : template.getOutputProfile();
+        String documentKey = outputCache.isDeterministic() ? outputCache.keyOf(template, profile, data) : null;
+        render(template, data, out, progress, profile, documentKey, true);
+    }
+
+    private void render(CompiledTemplate template, Map<String, Object> data, OutputStream out,
+                        RenderProgress progress, OutputProfile profile, String documentKey,
+                        boolean prepareAhead) throws Exception {
+        String templateId = template.getTemplateId();
+        long start = System.nanoTime();
+        ElementPreparer.Prepared prepared = ElementPreparer.Prepared.NONE;
+        try {
+            prefetch(template, data);
+            if (prepareAhead) {
+                prepared = elementPreparer.prepare(template, data);
+            }
+            long prefetched = System.nanoTime();
+            metrics.recordStage(templateId, RenderMetrics.STAGE_PREFETCH, prefetched - start);
+            
+            Document document = openDocument(template, out, profile, documentKey);
+            RenderContext context = newContext(document, data);
+            decoratePages(template, context);
+            renderElements(template, context, progress, prepared);
+            long laidOut = System.nanoTime();
+            metrics.recordStage(templateId, RenderMetrics.STAGE_LAYOUT, laidOut - prefetched);
+            
+            finish(templateId, document, out, start, laidOut);
+        } catch (Exception e) {
+            prepared.cancel();
+            metrics.recordFailure(templateId);
+            throw e;
         }
+    }
+
+    /**
+     * Renders all records into a single document instead of one document per record.
+     * See {@link #renderMerged}.
+     */
+    public int generateMergedPdf(MergedGenerationRequest request, OutputStream out) throws Exception {
+        log.info("Generating merged PDF for template: {}", request.getTemplateId());
         
-        float top = settings.getMarginTop() != null ? settings.getMarginTop() : 36f;
-        float bottom = settings.getMarginBottom() != null ? settings.getMarginBottom() : 36f;
-        float left = settings.getMarginLeft() != null ? settings.getMarginLeft() : 36f;
-        float right = settings.getMarginRight() != null ? settings.getMarginRight() : 36f;
+        CompiledTemplate template = lookup(request.getTemplateId());
+        List<Map<String, Object>> records = request.getRecords() != null ? request.getRecords() : List.of();
+        OutputProfile profile = profileOf(template, request.getOutputProfile());
         
-        document.setMargins(top, right, bottom, left);
+        int count = renderMerged(template, records.iterator(), request.getBookmarkTitle(), profile, out);
+        log.info("Merged PDF generated successfully with {} records", count);
+        return count;
     }
-    
-    private PageSize getPageSize(String size) {
-        if (size == null) {
-            return PageSize.A4;
+
+    /**
+     * Renders every record into one document, each starting on a new page. Fonts and
+     * image XObjects are shared by all records and written to the output once, and
+     * pages are flushed as layout moves on, so memory does not grow with the record
+     * count. When a bookmark title pattern is given, each record gets an outline entry
+     * pointing at its first page.
+     */
+    public int renderMerged(CompiledTemplate template, Iterator<Map<String, Object>> records,
+                            String bookmarkTitle, OutputProfile profile, OutputStream out) throws Exception {
+        if (!records.hasNext()) {
+            throw new IllegalArgumentException("No records to render for template: " + template.getTemplateId());
         }
+        PlaceholderTemplate titles = bookmarkTitle != null && !bookmarkTitle.isBlank()
+                ? PlaceholderTemplate.parse(bookmarkTitle) : null;
         
-        return switch (size.toUpperCase()) {
-            case "LETTER" -> PageSize.LETTER;
-            case "LEGAL" -> PageSize.LEGAL;
-            case "A3" -> PageSize.A3;
-            case "A5" -> PageSize.A5;
-            case "TABLOID" -> PageSize.TABLOID;
-            default -> PageSize.A4;
-        };
-    }
-    
-    private void processElement(Document document, PdfTemplate.Element element, 
-                                Map<String, Object> data) throws Exception {
-        ElementProcessor processor = processors.get(element.getType().toUpperCase());
+        String templateId = template.getTemplateId();
+        long start = System.nanoTime();
+        long prefetchNanos = 0;
         
-        if (processor == null) {
-            log.warn("No processor found for element type: {}", element.getType());
-            return;
+        Document document = openDocument(template, out, profile, null);
+        PdfDocument pdfDoc = document.getPdfDocument();
+        RenderContext shared = newContext(document, Map.of());
+        PdfOutline outlines = null;
+        if (titles != null) {
+            outlines = pdfDoc.getOutlines(false);
+            pdfDoc.getCatalog().setPageMode(PdfName.UseOutlines);
+        }
+        
+        int count = 0;
+        try {
+            while (records.hasNext()) {
+                Map<String, Object> record = records.next();
+                Map<String, Object> data = record != null ? record : new HashMap<>();
+                long prefetchStart = System.nanoTime();
+                prefetch(template, data);
+                prefetchNanos += System.nanoTime() - prefetchStart;
+                
+                // Before the break, so the record's first page shows its own headers and footers
+                RenderContext context = shared.withData(data);
+                decoratePages(template, context);
+                if (count > 0) {
+                    document.add(new AreaBreak(AreaBreakType.NEXT_PAGE));
+                }
+                PdfPage firstPage = pdfDoc.getNumberOfPages() > 0 ? pdfDoc.getLastPage() : null;
+                
+                // Started right before layout, which cancels it if it fails
+                renderElements(template, context, RenderProgress.NONE, elementPreparer.prepare(template, data));
+                count++;
+                
+                if (outlines != null) {
+                    PdfPage target = firstPage != null ? firstPage : pdfDoc.getFirstPage();
+                    outlines.addOutline(titles.render(data)).addDestination(PdfExplicitDestination.createFit(target));
+                }
+            }
+            long laidOut = System.nanoTime();
+            metrics.recordStage(templateId, RenderMetrics.STAGE_PREFETCH, prefetchNanos);
+            metrics.recordStage(templateId, RenderMetrics.STAGE_LAYOUT, laidOut - start - prefetchNanos);
+            
+            finish(templateId, document, out, start, laidOut);
+        } catch (Exception e) {
+            metrics.recordFailure(templateId);
+            throw e;
         }
+        return count;
+    }
+
+    private CompiledTemplate lookup(String templateId) {
+        long start = System.nanoTime();
+        CompiledTemplate template = templateStore.getCompiledTemplate(templateId);
+        metrics.recordStage(templateId, RenderMetrics.STAGE_LOOKUP, System.nanoTime() - start);
+        return template;
+    }
+
+    /**
+     * Closes the document, which writes the remaining pages, fonts and cross-reference
+     * table, and records the document's size, pages and total time.
+     */
+    private void finish(String templateId, Document document, OutputStream out,
+                        long start, long laidOut) throws IOException {
+        PdfDocument pdfDoc = document.getPdfDocument();
+        PdfWriter writer = pdfDoc.getWriter();
+        int pages = pdfDoc.getNumberOfPages();
+        
+        document.close();
+        out.flush();
+        long closed = System.nanoTime();
         
-        processor.process(document, element, data);
+        metrics.recordStage(templateId, RenderMetrics.STAGE_CLOSE, closed - laidOut);
+        metrics.recordDocument(templateId, closed - start, writer.getCurrentPos(), pages);
+    }
+
+    // Kick off image loads so they overlap with each other and with layout
+    private void prefetch(CompiledTemplate template, Map<String, Object> data) {
+        for (CompiledElement element : template.getElements()) {
+            element.getProcessor().prefetch(element, data);
+        }
+    }
+
+    private static Map<String, Object> dataOf(PdfGenerationRequest request) {
+        return request.getData() != null ? request.getData() : new HashMap<>();
+    }
+
+    /**
+     * With a document key the output is deterministic: the key is the document ID and the
+     * creation and modification dates iText would add are left out.
+     */
+    private Document openDocument(CompiledTemplate template, OutputStream out, OutputProfile profile,
+                                  String documentKey) {
+        WriterProperties properties = profile.writerProperties();
+        if (documentKey != null) {
+            PdfString id = new PdfString(HexFormat.of().parseHex(documentKey, 0, 32)).setHexWriting(true);
+            properties.setInitialDocumentId(id).setModifiedDocumentId(id);
+        }
+        PdfWriter writer = new PdfWriter(out, properties);
+        writer.setCloseStream(false);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        if (documentKey != null) {
+            pdfDoc.getDocumentInfo().removeCreationDate();
+            pdfDoc.getDocumentInfo().setMoreInfo(PdfName.ModDate.getValue(), null);
+        }
+        
+        if (template.getPageSize() != null) {
+            pdfDoc.setDefaultPageSize(template.getPageSize());
+        }
+        
+        Document document = new Document(pdfDoc);
+        float[] margins = template.getMargins();
+        if (margins != null) {
+            document.setMargins(margins[0], margins[1], margins[2], margins[3]);
+        }
+        return document;
+    }
+
+    /**
+     * Text is laid out by font family through the document's font provider, so any element
+     * falls back to a font that has the glyphs, whatever its script.
+     */
+    private RenderContext newContext(Document document, Map<String, Object> data) {
+        DocumentFonts fonts = new DocumentFonts(fontRegistry, multiLanguagePdfService.getFallbackFonts());
+        document.setFontProvider(fonts.getProvider());
+        document.setFontFamily(fonts.defaultFamilies());
+        return new RenderContext(document, data, fonts, new DocumentImages(imageCache), new DocumentStyles(fonts),
+                new DocumentFragments(), new PageDecorations(document, fonts));
+    }
+
+    /**
+     * The profile the request names, or the template's.
+     *
+     * @throws IllegalArgumentException if there is no profile of the requested name
+     */
+    private static OutputProfile profileOf(CompiledTemplate template, String requested) {
+        OutputProfile profile = OutputProfile.of(requested);
+        return profile != null ? profile : template.getOutputProfile();
+    }
+
+    private static void decoratePages(CompiledTemplate template, RenderContext context) throws Exception {
+        for (CompiledElement element : template.getElements()) {
+            element.getProcessor().decoratePages(context, element);
+        }
+    }
+
+    /**
+     * Static fragments are copied in place of their elements where they fit on the
+     * current page; everything else is laid out element by element, from what was
+     * prepared for it ahead.
+     */
+    private void renderElements(CompiledTemplate template, RenderContext context, RenderProgress progress,
+                                ElementPreparer.Prepared prepared) throws Exception {
+        PdfDocument pdfDoc = context.getDocument().getPdfDocument();
+        List<CompiledElement> elements = template.getElements();
+        int processed = 0;
+        try {
+            while (processed < elements.size()) {
+                long start = System.nanoTime();
+                StaticFragment fragment = template.fragmentAt(processed);
+                if (fragment != null && staticFragments.stamp(context, fragment)) {
+                    metrics.recordElement(RenderMetrics.ELEMENT_FRAGMENT, System.nanoTime() - start);
+                    processed += fragment.size();
+                } else {
+                    CompiledElement element = elements.get(processed);
+                    if (prepared.isPrepared(processed)) {
+                        element.getProcessor().process(context, element, prepared.get(processed));
+                    } else {
+                        element.getProcessor().process(context, element);
+                    }
+                    metrics.recordElement(element.getType(), System.nanoTime() - start);
+                    processed++;
+                }
+                progress.update(processed, pdfDoc.getNumberOfPages());
+            }
+        } catch (Exception e) {
+            prepared.cancel();
+            throw e;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,83 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.model.JobStatus;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Mutable state of one asynchronous generation job. Written by the job's worker,
+ * read by status requests, hence the volatile fields.
+ */
+@Getter
+class PdfJob {
+
+    private final String id;
+    private final PdfGenerationRequest request;
+    private final int totalElements;
+    private final Instant createdAt = Instant.now();
+
+    private volatile JobStatus.State state = JobStatus.State.QUEUED;
+    private volatile int elementsProcessed;
+    private volatile int pagesWritten;
+    private volatile Long resultSize;
+    private volatile String error;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile Instant expiresAt;
+
+    PdfJob(String id, PdfGenerationRequest request, int totalElements) {
+        this.id = id;
+        this.request = request;
+        this.totalElements = totalElements;
+    }
+
+    void start() {
+        startedAt = Instant.now();
+        state = JobStatus.State.RUNNING;
+    }
+
+    void progress(int elementsProcessed, int pagesWritten) {
+        this.elementsProcessed = elementsProcessed;
+        this.pagesWritten = pagesWritten;
+    }
+
+    void complete(long resultSize, Instant expiresAt) {
+        this.resultSize = resultSize;
+        finish(JobStatus.State.COMPLETED, expiresAt);
+    }
+
+    void fail(String error, Instant expiresAt) {
+        this.error = error;
+        finish(JobStatus.State.FAILED, expiresAt);
+    }
+
+    boolean isExpired(Instant now) {
+        return expiresAt != null && expiresAt.isBefore(now);
+    }
+
+    private void finish(JobStatus.State finalState, Instant expiresAt) {
+        this.completedAt = Instant.now();
+        this.expiresAt = expiresAt;
+        this.state = finalState;
+    }
+
+    JobStatus toStatus() {
+        return JobStatus.builder()
+                .jobId(id)
+                .templateId(request.getTemplateId())
+                .outputFileName(request.getOutputFileName())
+                .state(state)
+                .elementsProcessed(elementsProcessed)
+                .totalElements(totalElements)
+                .pagesWritten(pagesWritten)
+                .resultSize(resultSize)
+                .error(error)
+                .createdAt(createdAt)
+                .startedAt(startedAt)
+                .completedAt(completedAt)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
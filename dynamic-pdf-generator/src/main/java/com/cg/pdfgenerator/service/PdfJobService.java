@@ -0,0 +1,190 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.model.JobStatus;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.output.OutputProfile;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates documents in the background so long reports do not hold an HTTP connection
+ * open. Jobs are queued on a fixed pool ({@code pdf.jobs.workers}) and rendered by
+ * {@link PdfGeneratorService} under the shared {@link RenderLimiter}; finished documents
+ * are written to {@code pdf.jobs.store-dir} and removed with their job after
+ * {@code pdf.jobs.result-ttl}.
+ */
+@Service
+@Slf4j
+public class PdfJobService {
+
+    private static final String RESULT_SUFFIX = ".pdf";
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final TemplateStore templateStore;
+    private final PdfGeneratorService pdfGeneratorService;
+    private final RenderLimiter renderLimiter;
+    private final ThreadPoolExecutor workers;
+    private final Path storeDir;
+    private final Duration resultTtl;
+    private final Map<String, PdfJob> jobs = new ConcurrentHashMap<>();
+
+    public PdfJobService(TemplateStore templateStore, PdfGeneratorService pdfGeneratorService,
+                         RenderLimiter renderLimiter, PdfProperties properties) throws IOException {
+        this.templateStore = templateStore;
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.renderLimiter = renderLimiter;
+
+        PdfProperties.Jobs config = properties.getJobs();
+        int workerCount = Math.max(1, config.getWorkers());
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity())), workerThreadFactory());
+        this.storeDir = config.getStoreDir().toAbsolutePath().normalize();
+        this.resultTtl = config.getResultTtl();
+        Files.createDirectories(storeDir);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queues generation of the requested document.
+     *
+     * @throws IllegalArgumentException if the template does not exist
+     * @throws RenderRejectedException  if the job queue is full
+     */
+    public JobStatus submit(PdfGenerationRequest request) {
+        if (request.getTemplateId() == null) {
+            throw new IllegalArgumentException("Template id is required");
+        }
+        CompiledTemplate template = templateStore.getCompiledTemplate(request.getTemplateId());
+
+        PdfJob job = new PdfJob(UUID.randomUUID().toString(), request, template.getElements().size());
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> run(job, template));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new RenderRejectedException("Job queue is full (" + workers.getQueue().size() + " jobs waiting)");
+        }
+
+        log.info("Queued job {} for template: {}", job.getId(), request.getTemplateId());
+        return job.toStatus();
+    }
+
+    public Optional<JobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(PdfJob::toStatus);
+    }
+
+    /**
+     * The finished document of a completed job, empty while it is still running,
+     * if it failed, or once it has expired.
+     */
+    public Optional<Path> getResult(String jobId) {
+        PdfJob job = jobs.get(jobId);
+        if (job == null || job.getState() != JobStatus.State.COMPLETED) {
+            return Optional.empty();
+        }
+        Path result = resultPath(jobId);
+        return Files.exists(result) ? Optional.of(result) : Optional.empty();
+    }
+
+    /**
+     * Drops expired jobs with their documents, and documents left behind by a previous run.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void removeExpired() {
+        Instant now = Instant.now();
+        jobs.values().removeIf(job -> {
+            if (!job.isExpired(now)) {
+                return false;
+            }
+            deleteQuietly(resultPath(job.getId()));
+            return true;
+        });
+
+        Instant cutoff = now.minus(resultTtl);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDir)) {
+            for (Path file : files) {
+                String jobId = file.getFileName().toString().replaceFirst("\\.(pdf|part)$", "");
+                if (!jobs.containsKey(jobId) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean job store {}: {}", storeDir, e.getMessage());
+        }
+    }
+
+    private void run(PdfJob job, CompiledTemplate template) {
+        job.start();
+        PdfGenerationRequest request = job.getRequest();
+        Map<String, Object> data = request.getData() != null ? request.getData() : new HashMap<>();
+        Path partial = storeDir.resolve(job.getId() + PARTIAL_SUFFIX);
+        Path result = resultPath(job.getId());
+
+        try {
+            RenderLimiter.Permit permit = renderLimiter.acquireWhenAvailable();
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                pdfGeneratorService.render(template, data, out, job::progress, OutputProfile.of(request.getOutputProfile()));
+            } finally {
+                permit.close();
+            }
+            // Only complete documents ever appear under their final name
+            Files.move(partial, result, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            job.complete(Files.size(result), Instant.now().plus(resultTtl));
+            log.info("Job {} completed: {} pages", job.getId(), job.getPagesWritten());
+        } catch (Exception e) {
+            log.error("Job {} failed", job.getId(), e);
+            deleteQuietly(partial);
+            job.fail(e.getMessage(), Instant.now().plus(resultTtl));
+        }
+    }
+
+    private Path resultPath(String jobId) {
+        return storeDir.resolve(jobId + RESULT_SUFFIX);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "pdf-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds how many documents are laid out at once. Request threads are cheap (virtual
+ * threads on Java 21) and spend most of their time on I/O, but layout is CPU bound, so
+ * admitting every request at once only makes all of them slower. Requests wait up to
+ * {@code pdf.render.acquire-timeout} for a slot, in arrival order, and are rejected
+ * after that so clients can back off instead of piling up.
+ */
+@Component
+@Slf4j
+public class RenderLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+
+    public RenderLimiter(PdfProperties properties) {
+        this.maxConcurrent = Math.max(1, properties.getRender().getMaxConcurrent());
+        this.acquireTimeoutMillis = properties.getRender().getAcquireTimeout().toMillis();
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    /**
+     * Takes a render slot, waiting at most the configured time.
+     *
+     * @throws RenderRejectedException if no slot became free in time
+     */
+    public Permit acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                log.warn("Render capacity exhausted ({} in progress), rejecting request", maxConcurrent);
+                throw new RenderRejectedException("All " + maxConcurrent + " render slots are busy");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RenderRejectedException("Interrupted while waiting for a render slot");
+        }
+        return new Permit();
+    }
+
+    /**
+     * Takes a render slot, waiting as long as needed. For background work such as
+     * batches, which should queue behind interactive requests rather than fail.
+     */
+    public Permit acquireWhenAvailable() throws InterruptedException {
+        permits.acquire();
+        return new Permit();
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public int getActive() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    public int getQueued() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * A held render slot. Closing it more than once releases it only once, so it can
+     * be closed both on the normal path and in cleanup code.
+     */
+    public class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
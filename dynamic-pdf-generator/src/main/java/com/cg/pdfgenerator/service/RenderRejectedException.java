@@ -0,0 +1,13 @@
+package com.cg.pdfgenerator.service;
+
+/**
+ * Thrown when no render slot became free within {@code pdf.render.acquire-timeout}.
+ */
+public class RenderRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RenderRejectedException(String message) {
+        super(message);
+    }
+}
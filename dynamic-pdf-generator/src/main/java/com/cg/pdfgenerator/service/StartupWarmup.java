@@ -0,0 +1,169 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.CompiledTable;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.PlaceholderTemplate;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.model.BatchGenerationRequest;
+import com.cg.pdfgenerator.model.MergedGenerationRequest;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepares the application for its first requests. Spring Boot reports the readiness
+ * probe as accepting traffic only after all application runners have finished, so
+ * while this runs the instance is up but not yet sent any requests.
+ *
+ * <p>Saves the bundled templates that are not stored yet, builds the request
+ * deserializers, and renders synthetic documents of every template until the hot
+ * paths of layout and PDF writing are compiled by the JIT. Fonts are parsed earlier,
+ * when {@link MultiLanguagePdfService} starts. Failures are logged and never prevent
+ * the application from starting.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    private static final int SAMPLE_ROWS = 50;
+
+    private final PdfProperties properties;
+    private final TemplateStore templateStore;
+    private final PdfGeneratorService pdfGeneratorService;
+    private final FontRegistry fontRegistry;
+    private final ObjectMapper objectMapper;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        PdfProperties.Warmup config = properties.getWarmup();
+        if (!config.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+
+        loadBundledTemplates(config.getBundledTemplates());
+        primeDeserializers();
+        int documents = renderSamples(config.getIterations(), config.getTimeout());
+
+        log.info("Warm-up finished in {} ms: {} templates, {} font programs, {} documents rendered",
+                (System.nanoTime() - start) / 1_000_000, templateStore.getTemplateIds().size(),
+                fontRegistry.size(), documents);
+
+        if (config.isExit()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    /**
+     * Saves each bundled template under the id it declares, or its file name. Templates
+     * already stored are left alone, so edits made after the first start are kept.
+     */
+    private void loadBundledTemplates(String location) {
+        Resource[] resources;
+        try {
+            resources = context.getResources(location);
+        } catch (IOException e) {
+            log.warn("Could not list bundled templates at {}: {}", location, e.getMessage());
+            return;
+        }
+        for (Resource resource : resources) {
+            try (InputStream in = resource.getInputStream()) {
+                PdfTemplate template = objectMapper.readValue(in, PdfTemplate.class);
+                if (template.getTemplateId() == null && resource.getFilename() != null) {
+                    template.setTemplateId(resource.getFilename().replaceFirst("\\.json$", ""));
+                }
+                if (!templateStore.templateExists(template.getTemplateId())) {
+                    templateStore.saveTemplate(template);
+                    log.info("Bundled template stored: {}", template.getTemplateId());
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Bundled template {} not loaded: {}", resource.getFilename(), e.getMessage());
+            }
+        }
+    }
+
+    // Jackson builds a deserializer per type on first use
+    private void primeDeserializers() {
+        for (Class<?> type : List.of(PdfGenerationRequest.class, MergedGenerationRequest.class,
+                BatchGenerationRequest.class, PdfTemplate.class)) {
+            try {
+                objectMapper.readValue("{}", type);
+            } catch (IOException e) {
+                log.debug("Could not prime deserializer for {}: {}", type.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private int renderSamples(int iterations, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<CompiledTemplate> templates = new ArrayList<>();
+        for (String templateId : templateStore.getTemplateIds()) {
+            try {
+                templates.add(templateStore.getCompiledTemplate(templateId));
+            } catch (RuntimeException e) {
+                log.warn("Template {} not warmed up: {}", templateId, e.getMessage());
+            }
+        }
+
+        int documents = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (CompiledTemplate template : templates) {
+                if (System.nanoTime() > deadline) {
+                    log.info("Warm-up rendering stopped after {}", timeout);
+                    return documents;
+                }
+                try {
+                    pdfGeneratorService.render(template, sampleData(template), OutputStream.nullOutputStream());
+                    documents++;
+                } catch (Exception e) {
+                    log.debug("Warm-up render of {} failed: {}", template.getTemplateId(), e.getMessage());
+                }
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Placeholders are left unresolved, which lays out the same amount of text; tables fed
+     * from the data get sample rows so that row and cell handling is exercised too.
+     */
+    private static Map<String, Object> sampleData(CompiledTemplate template) {
+        Map<String, Object> data = new HashMap<>();
+        for (CompiledElement element : template.getElements()) {
+            if (element.getContent() instanceof CompiledTable table && table.getDataSource() != null) {
+                List<Map<String, Object>> rows = new ArrayList<>(SAMPLE_ROWS);
+                for (int i = 0; i < SAMPLE_ROWS; i++) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (PlaceholderTemplate header : table.getHeaders()) {
+                        row.put(header.getSource(), header.getSource() + " " + i);
+                    }
+                    rows.add(row);
+                }
+                data.put(table.getDataSource(), rows);
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,157 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.engine.DocumentFragments;
+import com.cg.pdfgenerator.engine.DocumentStyles;
+import com.cg.pdfgenerator.engine.PageDecorations;
+import com.cg.pdfgenerator.engine.RenderContext;
+import com.cg.pdfgenerator.engine.StaticFragment;
+import com.cg.pdfgenerator.font.DocumentFonts;
+import com.cg.pdfgenerator.font.FallbackFonts;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.image.DocumentImages;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.itextpdf.kernel.geom.PageSize;
+import com.itextpdf.kernel.geom.Rectangle;
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.pdf.xobject.PdfFormXObject;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
+import com.itextpdf.layout.layout.LayoutArea;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Lays out each {@link StaticFragment} once into a small PDF of its own and copies its
+ * page into documents as a Form XObject. Copying takes a fraction of the time layout
+ * of the same text takes, so the work per document grows with the data-bound elements
+ * only.
+ *
+ * <p>Prepared fragments are held as long as their compiled template is, and prepared
+ * again when fallback fonts change or the template's page size does.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaticFragments {
+
+    private final FontRegistry fontRegistry;
+    private final ImageCache imageCache;
+    private final MultiLanguagePdfService multiLanguagePdfService;
+    private final Map<StaticFragment, Prepared> prepared = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Adds the fragment to the document. Returns false, leaving the elements to be laid
+     * out one by one, when the fragment does not fit on the current page: laid out
+     * normally, its elements would be split across pages.
+     */
+    public boolean stamp(RenderContext context, StaticFragment fragment) throws IOException {
+        Document document = context.getDocument();
+        PdfDocument pdfDoc = document.getPdfDocument();
+        float width = pdfDoc.getDefaultPageSize().getWidth() - document.getLeftMargin() - document.getRightMargin();
+        float maxHeight = pdfDoc.getDefaultPageSize().getHeight() - document.getTopMargin() - document.getBottomMargin();
+        Prepared fragmentPdf = prepare(fragment, width, maxHeight);
+        if (fragmentPdf.source() == null || fragmentPdf.height() > availableHeight(document, maxHeight)) {
+            return false;
+        }
+
+        PdfFormXObject xObject = context.getFragments().get(fragment);
+        if (xObject == null) {
+            xObject = fragmentPdf.copyTo(pdfDoc);
+            context.getFragments().put(fragment, xObject);
+        }
+        document.add(new Image(xObject));
+        return true;
+    }
+
+    private Prepared prepare(StaticFragment fragment, float width, float maxHeight) {
+        FallbackFonts fallback = multiLanguagePdfService.getFallbackFonts();
+        Prepared current = prepared.get(fragment);
+        if (current == null || current.fallback() != fallback
+                || current.width() != width || current.maxHeight() != maxHeight) {
+            current = build(fragment, width, maxHeight, fallback);
+            prepared.put(fragment, current);
+        }
+        return current;
+    }
+
+    /**
+     * Lays the elements out on a page the size of the documents' content area and crops
+     * the page to the height they take. Fragments that do not fit one page are never
+     * stamped.
+     */
+    private Prepared build(StaticFragment fragment, float width, float maxHeight, FallbackFonts fallback) {
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PdfDocument pdfDoc = new PdfDocument(new PdfWriter(out));
+            Document document = new Document(pdfDoc, new PageSize(width, maxHeight));
+            document.setMargins(0, 0, 0, 0);
+
+            DocumentFonts fonts = new DocumentFonts(fontRegistry, fallback);
+            document.setFontProvider(fonts.getProvider());
+            document.setFontFamily(fonts.defaultFamilies());
+            RenderContext context = new RenderContext(document, Map.of(), fonts, new DocumentImages(imageCache),
+                    new DocumentStyles(fonts), new DocumentFragments(), new PageDecorations(document, fonts));
+            for (CompiledElement element : fragment.getElements()) {
+                element.getProcessor().process(context, element);
+            }
+
+            boolean onePage = pdfDoc.getNumberOfPages() == 1;
+            float height = maxHeight - document.getRenderer().getCurrentArea().getBBox().getHeight();
+            if (onePage) {
+                pdfDoc.getFirstPage().setMediaBox(new Rectangle(0, maxHeight - height, width, height));
+            }
+            document.close();
+            if (!onePage) {
+                log.info("Static fragment at element {} is longer than a page and is laid out per document",
+                        fragment.getStart());
+                return new Prepared(fallback, width, maxHeight, null, 0);
+            }
+
+            PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(out.toByteArray())));
+            log.debug("Prepared static fragment at element {}: {} elements, {} bytes",
+                    fragment.getStart(), fragment.size(), out.size());
+            return new Prepared(fallback, width, maxHeight, source, height);
+        } catch (Exception e) {
+            log.warn("Static fragment at element {} not prepared, laying it out per document: {}",
+                    fragment.getStart(), e.getMessage());
+            return new Prepared(fallback, width, maxHeight, null, 0);
+        }
+    }
+
+    private static float availableHeight(Document document, float maxHeight) {
+        LayoutArea area = document.getRenderer().getCurrentArea();
+        return area != null ? area.getBBox().getHeight() : maxHeight;
+    }
+
+    /**
+     * A fragment laid out for one content area and set of fallback fonts. The source document
+     * is read-only but not thread-safe, so copies from it are serialized.
+     */
+    private record Prepared(FallbackFonts fallback, float width, float maxHeight, PdfDocument source, float height) {
+
+        /**
+         * The page is cropped to the top of the content area; the form's matrix moves its
+         * content down to the origin, where layout expects it.
+         */
+        PdfFormXObject copyTo(PdfDocument target) throws IOException {
+            PdfFormXObject xObject;
+            synchronized (source) {
+                xObject = source.getFirstPage().copyAsFormXObject(target);
+            }
+            xObject.put(PdfName.Matrix, new PdfArray(new float[] {1, 0, 0, 1, 0, height - maxHeight}));
+            return xObject;
+        }
+    }
+}
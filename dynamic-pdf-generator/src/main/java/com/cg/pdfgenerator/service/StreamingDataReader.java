@@ -0,0 +1,117 @@
+package com.cg.pdfgenerator.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads template data from a JSON object while the document is rendered, so a table of a
+ * million rows never has to be held in memory.
+ *
+ * <p>Fields are parsed up to the first array a table takes its rows from. That array is
+ * handed out as an iterator that parses one entry per row the table pulls, which large
+ * tables lay out and flush in chunks. Once it is exhausted, the fields after it are added
+ * to the same map, up to the next such array. Elements before a table therefore only see
+ * the fields that come before its array in the body, and each array can be read once.
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamingDataReader {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The data read up to the first of the given arrays, see above. The stream is read
+     * until the last array has been iterated and is not closed.
+     *
+     * @throws IllegalArgumentException if the body is not a JSON object
+     */
+    public Map<String, Object> read(InputStream in, Set<String> streamed) throws IOException {
+        JsonParser parser = objectMapper.createParser(in);
+        parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Template data must be a JSON object");
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        new StreamedObject(parser, data, streamed).readFields();
+        return data;
+    }
+
+    private final class StreamedObject {
+        private final JsonParser parser;
+        private final Map<String, Object> data;
+        private final Set<String> streamed;
+
+        StreamedObject(JsonParser parser, Map<String, Object> data, Set<String> streamed) {
+            this.parser = parser;
+            this.data = data;
+            this.streamed = streamed;
+        }
+
+        /**
+         * Reads fields up to the next streamed array or the end of the object.
+         */
+        void readFields() throws IOException {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_ARRAY && streamed.contains(name)) {
+                    data.put(name, new StreamedArray());
+                    return;
+                }
+                data.put(name, objectMapper.readValue(parser, Object.class));
+            }
+            parser.close();
+        }
+
+        private final class StreamedArray implements Iterator<Object> {
+            private Object next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null && !done) {
+                    advance();
+                }
+                return next != null;
+            }
+
+            @Override
+            public Object next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object row = next;
+                next = null;
+                return row;
+            }
+
+            private void advance() {
+                try {
+                    // null entries are skipped, tables have no use for them
+                    while (next == null) {
+                        if (parser.nextToken() == JsonToken.END_ARRAY) {
+                            done = true;
+                            readFields();
+                            return;
+                        }
+                        next = objectMapper.readValue(parser, Object.class);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -1,30 +1,84 @@
 package com.cg.pdfgenerator.service;
 
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.TemplateCompiler;
 import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.repository.StoredTemplate;
+import com.cg.pdfgenerator.repository.TemplateRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Compiled templates, cached in memory in front of the {@link TemplateRepository}.
+ * Saves and deletes go to the repository first, lookups that miss the cache read
+ * through to it, and cached templates whose files change on disk are recompiled.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class TemplateStore {
 
-    private final Map<String, PdfTemplate> templates = new ConcurrentHashMap<>();
+    private final TemplateCompiler templateCompiler;
+    private final TemplateRepository templateRepository;
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    /**
+     * Indexes the stored templates and starts following changes on disk. Templates are
+     * compiled when first used.
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        templateRepository.loadIndex();
+        templateRepository.watch(this::reload);
+    }
+
+    /**
+     * Compiles and stores the template. The compiled plan replaces any previous
+     * version atomically, so in-flight requests keep rendering the version they started with.
+     * Compiling and writing happen outside the cache, so lookups never wait for them.
+     */
     public void saveTemplate(PdfTemplate template) {
         if (template.getTemplateId() == null || template.getTemplateId().isEmpty()) {
             throw new IllegalArgumentException("Template ID is required");
         }
-        templates.put(template.getTemplateId(), template);
-        log.info("Template saved: {}", template.getTemplateId());
+        if (!TemplateRepository.isValidId(template.getTemplateId())) {
+            throw new IllegalArgumentException("Template ID may only contain letters, digits, '.', '_' and '-'");
+        }
+        long version = templateRepository.nextVersion(template.getTemplateId());
+        CompiledTemplate compiled = templateCompiler.compile(template, version);
+        templateRepository.save(template, version);
+        // Concurrent saves of the same template publish in version order, whatever order they finish in
+        templates.merge(template.getTemplateId(), compiled, TemplateStore::newer);
+        log.info("Template saved: {} (version {})", template.getTemplateId(), version);
+    }
+
+    /**
+     * Reads a template from a JSON file and saves it under the given id.
+     */
+    public void loadTemplate(String templateId, String jsonFilePath) throws IOException {
+        PdfTemplate template = objectMapper.readValue(new File(jsonFilePath), PdfTemplate.class);
+        template.setTemplateId(templateId);
+        saveTemplate(template);
     }
 
     public PdfTemplate getTemplate(String templateId) {
-        PdfTemplate template = templates.get(templateId);
+        return getCompiledTemplate(templateId).getTemplate();
+    }
+
+    public CompiledTemplate getCompiledTemplate(String templateId) {
+        CompiledTemplate template = templateId != null ? lookup(templateId) : null;
         if (template == null) {
             throw new IllegalArgumentException("Template not found: " + templateId);
         }
@@ -32,11 +86,65 @@ public class TemplateStore {
     }
 
     public void removeTemplate(String templateId) {
+        templateRepository.delete(templateId);
         templates.remove(templateId);
         log.info("Template removed: {}", templateId);
     }
 
+    /**
+     * The ids of all stored templates, compiled or not.
+     */
+    public Set<String> getTemplateIds() {
+        Set<String> ids = new TreeSet<>(templateRepository.ids());
+        ids.addAll(templates.keySet());
+        return ids;
+    }
+
     public boolean templateExists(String templateId) {
-        return templates.containsKey(templateId);
+        return templateId != null && lookup(templateId) != null;
+    }
+
+    private CompiledTemplate lookup(String templateId) {
+        CompiledTemplate template = templates.get(templateId);
+        if (template != null) {
+            return template;
+        }
+        Optional<StoredTemplate> stored = templateRepository.find(templateId);
+        if (stored.isEmpty()) {
+            return null;
+        }
+        // Compiled outside the map, whose lock would also hold up lookups of other templates
+        CompiledTemplate compiled = templateCompiler.compile(stored.get().template(), stored.get().version());
+        return templates.merge(templateId, compiled, TemplateStore::newer);
+    }
+
+    private static CompiledTemplate newer(CompiledTemplate previous, CompiledTemplate next) {
+        return previous.getVersion() >= next.getVersion() ? previous : next;
+    }
+
+    /**
+     * Brings a cached template in line with its file after a change on disk. Saves made
+     * through this store also end up here and are recognised by their version.
+     */
+    private void reload(String templateId) {
+        if (!templates.containsKey(templateId)) {
+            return; // read through on first use
+        }
+        Optional<StoredTemplate> stored = templateRepository.find(templateId);
+        if (stored.isEmpty()) {
+            if (!templateRepository.exists(templateId) && templates.remove(templateId) != null) {
+                log.info("Template removed on disk: {}", templateId);
+            }
+            return;
+        }
+        StoredTemplate current = stored.get();
+        CompiledTemplate cached = templates.get(templateId);
+        if (cached == null || cached.getVersion() >= current.version()) {
+            return;
+        }
+        CompiledTemplate compiled = templateCompiler.compile(current.template(), current.version());
+        if (templates.computeIfPresent(templateId, (id, previous) -> newer(previous, compiled)) == compiled) {
+            log.info("Template reloaded from disk: {} (version {})", templateId, current.version());
+        }
     }
 }
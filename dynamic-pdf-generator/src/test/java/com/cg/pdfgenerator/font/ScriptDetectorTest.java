@@ -0,0 +1,56 @@
+package com.cg.pdfgenerator.font;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScriptDetectorTest {
+
+    @Test
+    void reportsEnglishForEmptyOrLatinText() {
+        assertThat(ScriptDetector.analyze("")).isEqualTo(new ScriptAnalysis("ENGLISH", List.of()));
+        assertThat(ScriptDetector.detectLanguage(null)).isEqualTo("ENGLISH");
+        assertThat(ScriptDetector.analyze("Invoice 42, due today.").runs())
+                .containsExactly(new ScriptRun("ENGLISH", 0, 22));
+    }
+
+    @Test
+    void dominantLanguageIsTheNonLatinScriptWithTheMostCharacters() {
+        assertThat(ScriptDetector.detectLanguage("Total amount due for this invoice: Итого")).isEqualTo("CYRILLIC");
+        assertThat(ScriptDetector.detectLanguage("Итого שלום עולם")).isEqualTo("HEBREW");
+        assertThat(ScriptDetector.analyze("Итого שלום עולם").dominantLanguage()).isEqualTo("HEBREW");
+    }
+
+    @Test
+    void neutralCharactersExtendTheRunTheyAreIn() {
+        String text = "123 Привет, world!";
+
+        assertThat(ScriptDetector.analyze(text).runs()).containsExactly(
+                new ScriptRun("CYRILLIC", 0, 12),
+                new ScriptRun("ENGLISH", 12, 18));
+        assertThat(ScriptDetector.analyze("2024-01-31").runs()).containsExactly(new ScriptRun("ENGLISH", 0, 10));
+    }
+
+    @Test
+    void hanIsJapaneseWithKanaKoreanWithHangulAndChineseOtherwise() {
+        assertThat(ScriptDetector.detectLanguage("北京欢迎你")).isEqualTo("CHINESE");
+        assertThat(ScriptDetector.detectLanguage("韓國 한국어")).isEqualTo("KOREAN");
+
+        ScriptAnalysis japanese = ScriptDetector.analyze("東京はいい天気");
+        assertThat(japanese.dominantLanguage()).isEqualTo("JAPANESE");
+        // Han and kana runs join once both are Japanese
+        assertThat(japanese.runs()).containsExactly(new ScriptRun("JAPANESE", 0, 7));
+    }
+
+    @Test
+    void runsAreCharOffsetsAcrossSupplementaryCharacters() {
+        String text = "𠀀𠀁 abc";
+
+        assertThat(ScriptDetector.analyze(text).runs()).containsExactly(
+                new ScriptRun("CHINESE", 0, 5),
+                new ScriptRun("ENGLISH", 5, 8));
+        assertThat(new ScriptRun("ENGLISH", 5, 8).textOf(text)).isEqualTo("abc");
+    }
+}
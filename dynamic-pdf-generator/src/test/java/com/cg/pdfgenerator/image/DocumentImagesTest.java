@@ -0,0 +1,80 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfObject;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Image;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentImagesTest {
+
+    private static final byte[] LOGO = ImageServer.png(0x204080);
+    private static final byte[] STAMP = ImageServer.png(0x802010);
+
+    private ImageServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = ImageServer.serving(Map.of("/logo.png", LOGO, "/cdn/logo-copy.png", LOGO, "/stamp.png", STAMP));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+    }
+
+    @Test
+    void writesOneImageXObjectPerDistinctContent() throws IOException {
+        List<String> sources = List.of(
+                url("/logo.png"),
+                url("/stamp.png"),
+                url("/logo.png"),
+                url("/cdn/logo-copy.png"),
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(LOGO),
+                url("/stamp.png"),
+                url("/logo.png"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DocumentImages images = new DocumentImages(new ImageCache(new PdfProperties(), Runnable::run));
+        try (Document document = new Document(new PdfDocument(new PdfWriter(out)))) {
+            for (String source : sources) {
+                document.add(new Image(images.get(source, null, null)));
+            }
+        }
+
+        assertThat(imageXObjects(out.toByteArray())).isEqualTo(2);
+    }
+
+    private static int imageXObjects(byte[] pdf) throws IOException {
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            int count = 0;
+            for (int i = 1; i < document.getNumberOfPdfObjects(); i++) {
+                PdfObject object = document.getPdfObject(i);
+                if (object instanceof PdfStream stream && PdfName.Image.equals(stream.getAsName(PdfName.Subtype))) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private String url(String path) {
+        return server.url(path);
+    }
+}
@@ -0,0 +1,167 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Runs the cache against a local HTTP server that counts requests per image.
+ */
+class ImageCacheTest {
+
+    private ImageServer server;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = ImageServer.servingEverywhere(ImageServer.png(0x204080));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedImagesBeyondTheByteBound() throws Exception {
+        long weight = weightOfOneImage();
+        ImageCache cache = cache(DataSize.ofBytes(weight * 5 / 2), Duration.ofMinutes(1));
+
+        cache.get(url("a"), null, null);
+        cache.get(url("b"), null, null);
+        cache.get(url("a"), null, null);
+        cache.get(url("c"), null, null);
+
+        ImageCacheStats stats = cache.getStats();
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(stats.entries()).isEqualTo(2);
+        assertThat(stats.bytes()).isEqualTo(2 * weight).isLessThanOrEqualTo(stats.maxBytes());
+
+        cache.get(url("a"), null, null);
+        cache.get(url("b"), null, null);
+        assertThat(server.requests("/a")).isEqualTo(1);
+        assertThat(server.requests("/b")).isEqualTo(2);
+    }
+
+    @Test
+    void loadsImagesAgainOnceTheirTimeToLiveHasPassed() throws Exception {
+        ImageCache cache = cache(DataSize.ofMegabytes(1), Duration.ofMillis(200));
+
+        cache.get(url("a"), null, null);
+        cache.get(url("a"), null, null);
+        assertThat(server.requests("/a")).isEqualTo(1);
+
+        Thread.sleep(400);
+        cache.get(url("a"), null, null);
+        assertThat(server.requests("/a")).isEqualTo(2);
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentGetsAndPrefetchOfOneImageLoadItOnce() throws Exception {
+        ImageCache cache = cache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        server.setResponseDelayMillis(300);
+        String url = url("shared");
+
+        cache.prefetch(url, null, null);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CachedImage>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    cache.prefetch(url, null, null);
+                    return cache.get(url, null, null);
+                }));
+            }
+            start.countDown();
+
+            CachedImage first = results.get(0).get();
+            for (Future<CachedImage> result : results) {
+                assertThat(result.get()).isSameAs(first);
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertThat(server.requests("/shared")).isEqualTo(1);
+        assertThat(cache.getStats().loads()).isEqualTo(1);
+    }
+
+    @Test
+    void getRunsAPrefetchTheExecutorHasNotStarted() {
+        List<Runnable> neverRun = new ArrayList<>();
+        ImageCache cache = new ImageCache(properties(DataSize.ofMegabytes(1), Duration.ofMinutes(1)), neverRun::add);
+
+        cache.prefetch(url("queued"), null, null);
+        assertThat(neverRun).hasSize(1);
+
+        CachedImage image = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> cache.get(url("queued"), null, null));
+        assertThat(image).isNotNull();
+        assertThat(server.requests("/queued")).isEqualTo(1);
+
+        // The queued task finds the load taken and does nothing
+        neverRun.get(0).run();
+        assertThat(server.requests("/queued")).isEqualTo(1);
+    }
+
+    @Test
+    void failedLoadsAreNotRetriedUntilTheirTimeToLiveHasPassed() throws Exception {
+        PdfProperties properties = properties(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        properties.getImages().setFailureTtl(Duration.ofMillis(200));
+        ImageCache cache = new ImageCache(properties, executor);
+        try (ImageServer missing = ImageServer.serving(Map.of())) {
+            String url = missing.url("/gone");
+
+            assertThatThrownBy(() -> cache.get(url, null, null)).isInstanceOf(IOException.class);
+            cache.prefetch(url, null, null);
+            assertThatThrownBy(() -> cache.get(url, null, null)).isInstanceOf(IOException.class);
+            assertThat(missing.requests("/gone")).isEqualTo(1);
+            assertThat(cache.getStats().loadFailures()).isEqualTo(1);
+
+            Thread.sleep(400);
+            assertThatThrownBy(() -> cache.get(url, null, null)).isInstanceOf(IOException.class);
+            assertThat(missing.requests("/gone")).isEqualTo(2);
+        }
+    }
+
+    private long weightOfOneImage() throws IOException {
+        ImageCache measure = cache(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+        measure.get(url("measure"), null, null);
+        return measure.getStats().bytes();
+    }
+
+    private ImageCache cache(DataSize maxSize, Duration ttl) {
+        return new ImageCache(properties(maxSize, ttl), executor);
+    }
+
+    private static PdfProperties properties(DataSize maxSize, Duration ttl) {
+        PdfProperties properties = new PdfProperties();
+        properties.getImages().setCacheMaxSize(maxSize);
+        properties.getImages().setCacheTtl(ttl);
+        return properties;
+    }
+
+    private String url(String name) {
+        return server.url("/" + name);
+    }
+}
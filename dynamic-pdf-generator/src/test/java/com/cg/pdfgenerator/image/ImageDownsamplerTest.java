@@ -0,0 +1,112 @@
+package com.cg.pdfgenerator.image;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageDownsamplerTest {
+
+    private final ImageDownsampler downsampler = new ImageDownsampler(new PdfProperties.Images());
+
+    @Test
+    void boundsImagesToTheConfiguredResolutionOfTheirBox() {
+        // 120pt is 5/3 inch, 250 pixels at the default 150 DPI
+        assertThat(downsampler.targetOf(120f, null)).isEqualTo(new ImageDownsampler.Target(250, 0));
+        assertThat(downsampler.targetOf(120f, 72f)).isEqualTo(new ImageDownsampler.Target(250, 150));
+        assertThat(downsampler.targetOf(null, null)).isNull();
+        assertThat(downsampler.targetOf(0f, null)).isNull();
+
+        PdfProperties.Images disabled = new PdfProperties.Images();
+        disabled.setMaxDpi(0);
+        assertThat(new ImageDownsampler(disabled).targetOf(120f, 72f)).isNull();
+    }
+
+    @Test
+    void scalesJpegsDownToFitAndKeepsThemJpeg() throws IOException {
+        byte[] photo = encode(noise(1200, 900), "jpeg");
+
+        byte[] scaled = downsampler.downsample(photo, downsampler.targetOf(120f, null));
+
+        assertThat(scaled.length).isLessThan(photo.length);
+        assertThat(formatOf(scaled)).isEqualTo("JPEG");
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(scaled));
+        assertThat(image.getWidth()).isEqualTo(250);
+        assertThat(image.getHeight()).isEqualTo(188);
+    }
+
+    @Test
+    void keepsTheAspectRatioWithinBothBounds() throws IOException {
+        byte[] photo = encode(noise(1200, 900), "jpeg");
+
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(
+                downsampler.downsample(photo, new ImageDownsampler.Target(600, 150))));
+
+        assertThat(image.getWidth()).isEqualTo(200);
+        assertThat(image.getHeight()).isEqualTo(150);
+    }
+
+    @Test
+    void writesLineArtAsPalettePngWithTransparency() throws IOException {
+        BufferedImage art = new BufferedImage(800, 800, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = art.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 400, 800);
+        graphics.dispose();
+        byte[] png = encode(art, "png");
+
+        byte[] scaled = downsampler.downsample(png, new ImageDownsampler.Target(100, 0));
+
+        assertThat(formatOf(scaled)).isEqualTo("png");
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(scaled));
+        assertThat(image.getWidth()).isEqualTo(100);
+        assertThat(image.getColorModel()).isInstanceOf(IndexColorModel.class);
+        assertThat(image.getRGB(10, 50)).isEqualTo(Color.RED.getRGB());
+        assertThat(image.getRGB(90, 50) >>> 24).isZero();
+    }
+
+    @Test
+    void returnsTheOriginalWhenItFitsOrCannotBeRead() throws IOException {
+        byte[] small = encode(noise(200, 150), "jpeg");
+        byte[] unreadable = {1, 2, 3, 4};
+
+        assertThat(downsampler.downsample(small, new ImageDownsampler.Target(250, 0))).isSameAs(small);
+        assertThat(downsampler.downsample(unreadable, new ImageDownsampler.Target(250, 0))).isSameAs(unreadable);
+    }
+
+    private static BufferedImage noise(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt(0xFFFFFF));
+            }
+        }
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private static String formatOf(byte[] encoded) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(encoded))) {
+            ImageReader reader = ImageIO.getImageReaders(in).next();
+            return reader.getFormatName();
+        }
+    }
+}
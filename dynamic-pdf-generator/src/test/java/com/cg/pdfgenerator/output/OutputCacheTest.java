@@ -0,0 +1,112 @@
+package com.cg.pdfgenerator.output;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void spillsLeastRecentlyUsedDocumentsToDiskAndReadsThemBack() throws IOException {
+        OutputCache cache = cache(DataSize.ofBytes(250), dir, DataSize.ofKilobytes(1), Duration.ofMinutes(1));
+
+        cache.put("a", document('a', 100));
+        cache.put("b", document('b', 100));
+        cache.get("a");
+        cache.put("c", document('c', 100));
+
+        OutputCacheStats stats = cache.getStats();
+        assertThat(stats.memoryEntries()).isEqualTo(2);
+        assertThat(stats.memoryBytes()).isEqualTo(200);
+        assertThat(stats.diskEntries()).isEqualTo(1);
+        assertThat(stats.evictions()).isZero();
+        assertThat(dir.resolve("b.pdf")).exists();
+
+        assertThat(cache.get("b")).isEqualTo(document('b', 100));
+        assertThat(cache.get("a")).isEqualTo(document('a', 100));
+        assertThat(cache.get("c")).isEqualTo(document('c', 100));
+    }
+
+    @Test
+    void dropsDocumentsBeyondTheDiskBound() throws IOException {
+        OutputCache cache = cache(DataSize.ofBytes(50), dir, DataSize.ofBytes(250), Duration.ofMinutes(1));
+
+        cache.put("a", document('a', 100));
+        cache.put("b", document('b', 100));
+        cache.put("c", document('c', 100));
+
+        OutputCacheStats stats = cache.getStats();
+        assertThat(stats.diskEntries()).isEqualTo(2);
+        assertThat(stats.diskBytes()).isEqualTo(200);
+        assertThat(stats.evictions()).isEqualTo(1);
+        assertThat(cache.get("a")).isNull();
+        assertThat(dir.resolve("a.pdf")).doesNotExist();
+        assertThat(cache.get("c")).isEqualTo(document('c', 100));
+    }
+
+    @Test
+    void dropsDocumentsWithoutACacheDirectoryInsteadOfSpilling() throws IOException {
+        OutputCache cache = cache(DataSize.ofBytes(150), null, DataSize.ofKilobytes(1), Duration.ofMinutes(1));
+
+        cache.put("a", document('a', 100));
+        cache.put("b", document('b', 100));
+
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b")).isNotNull();
+    }
+
+    @Test
+    void expiresDocumentsInMemoryAndOnDisk() throws Exception {
+        OutputCache cache = cache(DataSize.ofBytes(150), dir, DataSize.ofKilobytes(1), Duration.ofMillis(200));
+
+        cache.put("a", document('a', 100));
+        cache.put("b", document('b', 100));
+        cache.put("c", document('c', 100));
+        assertThat(cache.getStats().diskEntries()).isEqualTo(2);
+
+        Thread.sleep(400);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("c")).isNull();
+        assertThat(dir.resolve("a.pdf")).doesNotExist();
+
+        cache.removeExpired();
+        OutputCacheStats stats = cache.getStats();
+        assertThat(stats.memoryEntries()).isZero();
+        assertThat(stats.diskEntries()).isZero();
+        assertThat(stats.diskBytes()).isZero();
+        try (Stream<Path> files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private static OutputCache cache(DataSize maxMemory, Path dir, DataSize maxDisk, Duration ttl) throws IOException {
+        PdfProperties properties = new PdfProperties();
+        properties.getOutput().setCacheEnabled(true);
+        properties.getOutput().setCacheMaxMemory(maxMemory);
+        properties.getOutput().setCacheDir(dir);
+        properties.getOutput().setCacheMaxDisk(maxDisk);
+        properties.getOutput().setCacheTtl(ttl);
+        return new OutputCache(new ObjectMapper(), properties);
+    }
+
+    private static byte[] document(char fill, int length) {
+        byte[] content = new byte[length];
+        Arrays.fill(content, (byte) fill);
+        return content;
+    }
+}
@@ -0,0 +1,123 @@
+package com.cg.pdfgenerator.processor;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledElement;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.service.GeneratorFixtures;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TableElementProcessorTest {
+
+    private static final Pattern SKU = Pattern.compile("SKU-\\d+");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void laysOutLargeTablesWithEveryRowOnceInOrderAndHeadersOnEveryPage() throws Exception {
+        List<String> pages = render(tables(10, 7), Map.of("items", items(300)));
+
+        assertThat(pages).hasSizeGreaterThan(1);
+        assertThat(pages).allSatisfy(page -> assertThat(page).contains("Item").contains("Price"));
+        assertThat(skus(pages)).isEqualTo(expectedSkus(300));
+    }
+
+    @Test
+    void laysOutIteratorDataSourcesInFull() throws Exception {
+        Iterator<Map<String, Object>> rows = items(300).iterator();
+
+        List<String> pages = render(tables(1_000, 50), Map.of("items", rows));
+
+        assertThat(rows.hasNext()).isFalse();
+        assertThat(skus(pages)).isEqualTo(expectedSkus(300));
+    }
+
+    @Test
+    void preparesOnlyTablesThatAreNotLaidOutInChunks() {
+        TableElementProcessor processor = new TableElementProcessor(tables(10, 5));
+
+        assertThat(processor.prepare(element(processor, Map.of()), Map.of("items", items(10)))).isNotNull();
+        assertThat(processor.prepare(element(processor, Map.of()), Map.of("items", items(11)))).isNull();
+        assertThat(processor.prepare(element(processor, Map.of()), Map.of("items", items(3).iterator()))).isNull();
+        assertThat(processor.prepare(element(processor, Map.of("largeTable", false)), Map.of("items", items(11))))
+                .isNotNull();
+        assertThat(processor.prepare(element(processor, Map.of("largeTable", true)), Map.of("items", items(3))))
+                .isNull();
+    }
+
+    private List<String> render(PdfProperties.Tables tables, Map<String, Object> data) throws Exception {
+        PdfProperties properties = new PdfProperties();
+        properties.setTables(tables);
+        GeneratorFixtures fixtures = new GeneratorFixtures(properties, dir);
+        fixtures.templateStore.saveTemplate(GeneratorFixtures.template("items", tableElement(Map.of())));
+        byte[] pdf = fixtures.generator.generatePdf(PdfGenerationRequest.builder()
+                .templateId("items")
+                .data(new HashMap<>(data))
+                .build());
+        return GeneratorFixtures.pageTexts(pdf);
+    }
+
+    private static CompiledElement element(TableElementProcessor processor, Map<String, Object> extraProperties) {
+        PdfTemplate.Element element = tableElement(extraProperties);
+        return CompiledElement.builder()
+                .id(element.getId())
+                .type(element.getType())
+                .processor(processor)
+                .content(processor.compileContent(element))
+                .properties(element.getProperties())
+                .build();
+    }
+
+    private static PdfTemplate.Element tableElement(Map<String, Object> extraProperties) {
+        Map<String, Object> properties = new HashMap<>(extraProperties);
+        properties.put("dataSource", "items");
+        return PdfTemplate.Element.builder()
+                .type("TABLE")
+                .id("items")
+                .content(Map.of("headers", List.of("Item", "Price"), "rows", List.of()))
+                .properties(properties)
+                .build();
+    }
+
+    private static PdfProperties.Tables tables(int largeTableThreshold, int flushEvery) {
+        PdfProperties.Tables tables = new PdfProperties.Tables();
+        tables.setLargeTableThreshold(largeTableThreshold);
+        tables.setFlushEvery(flushEvery);
+        return tables;
+    }
+
+    private static List<Map<String, Object>> items(int count) {
+        List<Map<String, Object>> items = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            items.add(Map.of("Item", "SKU-" + i, "Price", i + ".00"));
+        }
+        return items;
+    }
+
+    private static List<String> skus(List<String> pages) {
+        List<String> skus = new ArrayList<>();
+        Matcher matcher = SKU.matcher(String.join("\n", pages));
+        while (matcher.find()) {
+            skus.add(matcher.group());
+        }
+        return skus;
+    }
+
+    private static List<String> expectedSkus(int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(i -> "SKU-" + i).toList();
+    }
+}
@@ -0,0 +1,92 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.model.BatchResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static com.cg.pdfgenerator.service.GeneratorFixtures.template;
+import static com.cg.pdfgenerator.service.GeneratorFixtures.text;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchPdfServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private GeneratorFixtures fixtures;
+    private BatchPdfService batches;
+
+    @BeforeEach
+    void createService() throws IOException {
+        PdfProperties properties = new PdfProperties();
+        properties.getBatch().setWorkers(2);
+        properties.getBatch().setOutputDir(dir.resolve("out"));
+        fixtures = new GeneratorFixtures(properties, dir.resolve("templates"));
+        fixtures.templateStore.saveTemplate(template("letter", text("body", "Dear {{name}}")));
+        batches = new BatchPdfService(fixtures.templateStore, fixtures.generator,
+                GeneratorFixtures.OBJECT_MAPPER, fixtures.renderLimiter, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        batches.shutdown();
+    }
+
+    @Test
+    void writesOneEntryPerRecordInRecordOrderWithUniqueNames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchResult result = batches.writeZip("letter", records("a-3", "a", "a", "b/c", ""), "{{name}}", out);
+
+        Map<String, byte[]> entries = unzip(out.toByteArray());
+        assertThat(List.copyOf(entries.keySet()))
+                .containsExactly("a-3.pdf", "a.pdf", "a-3-2.pdf", "b_c.pdf", "document-5.pdf");
+        assertThat(GeneratorFixtures.pageTexts(entries.get("a-3-2.pdf"))).containsExactly("Dear a");
+        assertThat(result.getSucceeded()).isEqualTo(5);
+        assertThat(result.getFailed()).isZero();
+    }
+
+    @Test
+    void neverOverwritesEarlierDocumentsInDirectoryMode() throws IOException {
+        BatchResult result = batches.writeToDirectory("letter", records("a-3", "a", "a"), "{{name}}", "run");
+
+        try (Stream<Path> files = Files.list(Path.of(result.getOutputDirectory()))) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("a-3.pdf", "a.pdf", "a-3-2.pdf");
+        }
+    }
+
+    private static Iterator<Map<String, Object>> records(String... names) {
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (String name : names) {
+            records.add(Map.of("name", name));
+        }
+        return records.iterator();
+    }
+
+    private static Map<String, byte[]> unzip(byte[] zip) throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                entries.put(entry.getName(), in.readAllBytes());
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,48 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.TemplateCompiler;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.cg.pdfgenerator.service.GeneratorFixtures.template;
+import static com.cg.pdfgenerator.service.GeneratorFixtures.text;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ElementPreparerTest {
+
+    @Test
+    void leavesOutStaticFragmentsAndPageDecorations() throws Exception {
+        PdfProperties properties = new PdfProperties();
+        properties.getRender().setStaticFragmentMinLength(1);
+        CompiledTemplate template = new TemplateCompiler(new ImageCache(properties, Runnable::run), properties)
+                .compile(template("preparer",
+                        text("intro", "Introduction"),
+                        text("terms", "Terms and conditions"),
+                        text("greeting", "Hello {{name}}"),
+                        PdfTemplate.Element.builder()
+                                .type("HEADER")
+                                .id("header")
+                                .content("Page {{pageNumber}}")
+                                .properties(Map.of("repeatable", true))
+                                .build()), 1);
+        assertThat(template.getFragments()).hasSize(1);
+
+        List<Runnable> submitted = new ArrayList<>();
+        ElementPreparer.Prepared prepared = new ElementPreparer(properties, submitted::add)
+                .prepare(template, Map.of("name", "Ada"));
+
+        assertThat(submitted).hasSize(1);
+        assertThat(prepared.isPrepared(0)).isFalse();
+        assertThat(prepared.isPrepared(1)).isFalse();
+        assertThat(prepared.isPrepared(2)).isTrue();
+        assertThat(prepared.isPrepared(3)).isFalse();
+        assertThat(prepared.get(2)).isEqualTo("Hello Ada");
+    }
+}
@@ -0,0 +1,84 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.TemplateCompiler;
+import com.cg.pdfgenerator.font.FontRegistry;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.metrics.RenderMetrics;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputCache;
+import com.cg.pdfgenerator.repository.TemplateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Wires the generation pipeline the way Spring does, without starting a context, and
+ * reads back what it generated.
+ */
+public final class GeneratorFixtures {
+
+    public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    public final PdfProperties properties;
+    public final TemplateStore templateStore;
+    public final PdfGeneratorService generator;
+    public final RenderLimiter renderLimiter;
+
+    /**
+     * Stores templates in the given directory, which is not watched.
+     */
+    public GeneratorFixtures(PdfProperties properties, Path templateDir) throws IOException {
+        this.properties = properties;
+        properties.getTemplates().setDir(templateDir);
+        properties.getTemplates().setWatch(false);
+        ImageCache imageCache = new ImageCache(properties, Runnable::run);
+        templateStore = new TemplateStore(new TemplateCompiler(imageCache, properties),
+                new TemplateRepository(OBJECT_MAPPER, properties));
+        templateStore.open();
+        FontRegistry fontRegistry = new FontRegistry();
+        MultiLanguagePdfService multiLanguage = new MultiLanguagePdfService(fontRegistry);
+        multiLanguage.preloadFonts();
+        generator = new PdfGeneratorService(templateStore, fontRegistry, imageCache, multiLanguage,
+                new RenderMetrics(new SimpleMeterRegistry()), new OutputCache(OBJECT_MAPPER, properties),
+                new StaticFragments(fontRegistry, imageCache, multiLanguage), new StreamingDataReader(OBJECT_MAPPER),
+                new ElementPreparer(properties, ForkJoinPool.commonPool()));
+        renderLimiter = new RenderLimiter(properties);
+    }
+
+    public static PdfTemplate template(String templateId, PdfTemplate.Element... elements) {
+        return PdfTemplate.builder()
+                .templateId(templateId)
+                .elements(List.of(elements))
+                .build();
+    }
+
+    public static PdfTemplate.Element text(String id, String content) {
+        return PdfTemplate.Element.builder()
+                .type("TEXT")
+                .id(id)
+                .content(content)
+                .build();
+    }
+
+    /**
+     * The text of every page of the document, in order.
+     */
+    public static List<String> pageTexts(byte[] pdf) throws IOException {
+        try (PdfDocument document = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            String[] pages = new String[document.getNumberOfPages()];
+            for (int i = 0; i < pages.length; i++) {
+                pages[i] = PdfTextExtractor.getTextFromPage(document.getPage(i + 1));
+            }
+            return List.of(pages);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.controller.PdfJobController;
+import com.cg.pdfgenerator.model.JobStatus;
+import com.cg.pdfgenerator.model.PdfGenerationRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.cg.pdfgenerator.service.GeneratorFixtures.template;
+import static com.cg.pdfgenerator.service.GeneratorFixtures.text;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private GeneratorFixtures fixtures;
+    private PdfJobService jobs;
+
+    @BeforeEach
+    void createService() throws IOException {
+        PdfProperties properties = new PdfProperties();
+        properties.getRender().setMaxConcurrent(1);
+        properties.getJobs().setWorkers(1);
+        properties.getJobs().setQueueCapacity(1);
+        properties.getJobs().setStoreDir(dir.resolve("jobs"));
+        fixtures = new GeneratorFixtures(properties, dir.resolve("templates"));
+        fixtures.templateStore.saveTemplate(template("letter", text("body", "Dear {{name}}")));
+        jobs = new PdfJobService(fixtures.templateStore, fixtures.generator, fixtures.renderLimiter, properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        jobs.shutdown();
+    }
+
+    @Test
+    void writesTheDocumentOfACompletedJobUnderItsFinalNameOnly() throws Exception {
+        JobStatus submitted = jobs.submit(request("letter"));
+
+        JobStatus done = awaitFinished(submitted.getJobId());
+
+        assertThat(done.getState()).isEqualTo(JobStatus.State.COMPLETED);
+        assertThat(done.getPagesWritten()).isEqualTo(1);
+        Path result = jobs.getResult(submitted.getJobId()).orElseThrow();
+        assertThat(done.getResultSize()).isEqualTo(Files.size(result));
+        assertThat(GeneratorFixtures.pageTexts(Files.readAllBytes(result))).containsExactly("Dear Jane");
+        try (Stream<Path> files = Files.list(dir.resolve("jobs"))) {
+            assertThat(files).containsExactly(result);
+        }
+    }
+
+    @Test
+    void rejectsJobsBeyondTheQueueCapacityWith429() throws Exception {
+        PdfJobController controller = new PdfJobController(jobs);
+        JobStatus running;
+        JobStatus queued;
+        // With the only render slot taken, the worker blocks on its job and the next one waits in the queue
+        RenderLimiter.Permit permit = fixtures.renderLimiter.acquire();
+        try {
+            running = jobs.submit(request("letter"));
+            queued = jobs.submit(request("letter"));
+
+            assertThatThrownBy(() -> jobs.submit(request("letter"))).isInstanceOf(RenderRejectedException.class);
+            ResponseEntity<JobStatus> rejected = controller.submitJob(request("letter"));
+            assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+            assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isNotNull();
+            assertThat(jobs.getStatus(queued.getJobId()).orElseThrow().getState()).isEqualTo(JobStatus.State.QUEUED);
+        } finally {
+            permit.close();
+        }
+
+        assertThat(awaitFinished(running.getJobId()).getState()).isEqualTo(JobStatus.State.COMPLETED);
+        assertThat(awaitFinished(queued.getJobId()).getState()).isEqualTo(JobStatus.State.COMPLETED);
+    }
+
+    @Test
+    void rejectsJobsForUnknownTemplatesWith404() {
+        assertThatThrownBy(() -> jobs.submit(request("missing"))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new PdfJobController(jobs).submitJob(request("missing")).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    private JobStatus awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            JobStatus status = jobs.getStatus(jobId).orElseThrow();
+            if (status.getState() == JobStatus.State.COMPLETED || status.getState() == JobStatus.State.FAILED) {
+                return status;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static PdfGenerationRequest request(String templateId) {
+        return PdfGenerationRequest.builder()
+                .templateId(templateId)
+                .data(Map.of("name", "Jane"))
+                .build();
+    }
+}
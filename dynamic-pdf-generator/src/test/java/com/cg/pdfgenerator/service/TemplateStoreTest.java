@@ -0,0 +1,138 @@
+package com.cg.pdfgenerator.service;
+
+import com.cg.pdfgenerator.config.PdfProperties;
+import com.cg.pdfgenerator.engine.CompiledTemplate;
+import com.cg.pdfgenerator.engine.TemplateCompiler;
+import com.cg.pdfgenerator.image.ImageCache;
+import com.cg.pdfgenerator.model.PdfTemplate;
+import com.cg.pdfgenerator.output.OutputCache;
+import com.cg.pdfgenerator.output.OutputProfile;
+import com.cg.pdfgenerator.repository.TemplateRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TemplateStoreTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    private PdfProperties properties;
+    private TemplateRepository repository;
+    private TemplateStore store;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        properties = new PdfProperties();
+        properties.getTemplates().setDir(dir);
+        properties.getTemplates().setWatch(false);
+        properties.getOutput().setCacheEnabled(true);
+        store = openStore(properties);
+    }
+
+    @Test
+    void templateSavedAgainAfterDeleteGetsANewVersion() throws IOException {
+        store.saveTemplate(template("letter", "Dear {{name}}"));
+        CompiledTemplate original = store.getCompiledTemplate("letter");
+
+        store.removeTemplate("letter");
+        assertThatThrownBy(() -> store.getCompiledTemplate("letter")).isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.getTemplateIds()).doesNotContain("letter");
+
+        store.saveTemplate(template("letter", "Hello {{name}}"));
+        CompiledTemplate recreated = store.getCompiledTemplate("letter");
+
+        assertThat(recreated.getVersion()).isGreaterThan(original.getVersion());
+        OutputCache outputCache = new OutputCache(OBJECT_MAPPER, properties);
+        Map<String, Object> data = Map.of("name", "Jane");
+        assertThat(outputCache.keyOf(recreated, OutputProfile.BALANCED, data))
+                .isNotEqualTo(outputCache.keyOf(original, OutputProfile.BALANCED, data));
+    }
+
+    @Test
+    void deletedTemplateKeepsItsVersionAcrossRestarts() throws IOException {
+        store.saveTemplate(template("letter", "Dear {{name}}"));
+        store.saveTemplate(template("letter", "Dear {{name}},"));
+        long deletedVersion = store.getCompiledTemplate("letter").getVersion();
+        store.removeTemplate("letter");
+        repository.writeSnapshot();
+
+        TemplateStore restarted = openStore(properties);
+        assertThat(restarted.getTemplateIds()).doesNotContain("letter");
+
+        restarted.saveTemplate(template("letter", "Hello {{name}}"));
+        assertThat(restarted.getCompiledTemplate("letter").getVersion()).isGreaterThan(deletedVersion);
+    }
+
+    @Test
+    void concurrentSavesOfOneTemplateGetDistinctVersions() throws Exception {
+        List<Thread> savers = List.of(
+                new Thread(() -> store.saveTemplate(template("letter", "A {{name}}"))),
+                new Thread(() -> store.saveTemplate(template("letter", "B {{name}}"))),
+                new Thread(() -> store.saveTemplate(template("letter", "C {{name}}"))));
+        savers.forEach(Thread::start);
+        for (Thread saver : savers) {
+            saver.join();
+        }
+
+        assertThat(store.getCompiledTemplate("letter").getVersion()).isEqualTo(3);
+        assertThat(repository.currentVersion("letter")).isEqualTo(3);
+        assertThat(repository.find("letter")).get()
+                .extracting(stored -> stored.template().getElements().get(0).getContent())
+                .isEqualTo(store.getTemplate("letter").getElements().get(0).getContent());
+    }
+
+    @Test
+    void lookupsRacingASaveEndOnTheSavedVersion() throws Exception {
+        store.saveTemplate(template("letter", "Dear {{name}}"));
+        TemplateStore restarted = openStore(properties);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> restarted.getCompiledTemplate("letter")));
+        }
+        threads.add(4, new Thread(() -> restarted.saveTemplate(template("letter", "Hello {{name}}"))));
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(restarted.getCompiledTemplate("letter").getVersion()).isEqualTo(2);
+        assertThat(repository.find("letter")).get()
+                .extracting(stored -> stored.version())
+                .isEqualTo(2L);
+        assertThat(restarted.getTemplate("letter").getElements().get(0).getContent()).isEqualTo("Hello {{name}}");
+    }
+
+    private TemplateStore openStore(PdfProperties properties) throws IOException {
+        repository = new TemplateRepository(OBJECT_MAPPER, properties);
+        TemplateStore opened = new TemplateStore(new TemplateCompiler(new ImageCache(properties, Runnable::run), properties),
+                repository);
+        opened.open();
+        return opened;
+    }
+
+    private static PdfTemplate template(String templateId, String text) {
+        PdfTemplate.Element element = PdfTemplate.Element.builder()
+                .type("TEXT")
+                .id("body")
+                .content(text)
+                .build();
+        return PdfTemplate.builder()
+                .templateId(templateId)
+                .elements(List.of(element))
+                .build();
+    }
+}